@@ -0,0 +1,79 @@
+package com.store.bench;
+
+import com.store.DatabaseConnection;
+import com.store.DatabaseSchema;
+import com.store.InvalidProductException;
+import com.store.Product;
+import com.store.ProductDAO;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Catálogos sintéticos y base de datos embebida para los benchmarks
+ */
+final class BenchmarkData {
+
+    static final String[] CATEGORIES = {"Ropa", "Electrónica", "Libros", "Hogar", "Deportes", "Juguetes", "Otros"};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Producto válido y determinista para la posición {@code i} del catálogo
+     */
+    static Product product(int i) throws InvalidProductException {
+        return new Product(i + 1, "Producto " + i, 1 + (i % 500) * 0.25, i % 40,
+            CATEGORIES[i % CATEGORIES.length], "Artículo de segunda mano número " + i);
+    }
+
+    static List<Product> catalog(int size) throws InvalidProductException {
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(product(i));
+        }
+        return products;
+    }
+
+    /**
+     * Apunta {@link DatabaseConnection} a una base H2 en memoria (modo MySQL) y crea el esquema.
+     * Debe llamarse antes del primer uso del pool: JMH ejecuta cada combinación de parámetros
+     * en un proceso nuevo.
+     */
+    static void startDatabase() throws SQLException {
+        System.setProperty("store.db.url",
+            "jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        System.setProperty("store.db.user", "sa");
+        System.setProperty("store.db.password", "");
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS products ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(100) NOT NULL, "
+                + "price DECIMAL(10,2) NOT NULL, "
+                + "stock INT NOT NULL, "
+                + "category VARCHAR(50) NOT NULL, "
+                + "description VARCHAR(500))");
+        }
+        DatabaseSchema.ensureSchema();
+    }
+
+    /**
+     * Inserta {@code size} productos con IDs de 1 a {@code size}
+     */
+    static void populate(ProductDAO dao, int size) throws SQLException, InvalidProductException {
+        int chunk = 10_000;
+        for (int start = 0; start < size; start += chunk) {
+            List<Product> products = new ArrayList<>(chunk);
+            for (int i = start; i < Math.min(size, start + chunk); i++) {
+                Product product = product(i);
+                product.setId(0);
+                products.add(product);
+            }
+            dao.addProducts(products);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.store.bench;
+
+import com.store.InvalidProductException;
+import com.store.Product;
+import com.store.ProductValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construcción de productos y validación (cada setter pasa por {@link ProductValidator})
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProductBenchmark {
+
+    private Product valid;
+    private Product invalid;
+    private int counter;
+
+    @Setup
+    public void setup() throws InvalidProductException {
+        valid = BenchmarkData.product(42);
+        // Los setters no admiten datos no válidos: la descripción demasiado larga se simula
+        // sobrescribiendo el getter, así la validación recorre todos los campos antes de fallar
+        String longDescription = "x".repeat(501);
+        invalid = new Product(valid) {
+            @Override
+            public String getDescription() {
+                return longDescription;
+            }
+        };
+    }
+
+    @Benchmark
+    public Product construct() throws InvalidProductException {
+        return new Product("Camiseta", 9.99, 3, "Ropa", "Talla M");
+    }
+
+    @Benchmark
+    public Product setters() throws InvalidProductException {
+        int i = counter++;
+        valid.setName(i % 2 == 0 ? "Camiseta" : "Pantalón");
+        valid.setPrice(9.99);
+        valid.setStock(i & 7);
+        valid.setCategory("Ropa");
+        valid.setDescription("Talla M");
+        return valid;
+    }
+
+    @Benchmark
+    public boolean validateValid() {
+        try {
+            ProductValidator.validate(valid);
+            return true;
+        } catch (InvalidProductException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean validateInvalid() {
+        try {
+            ProductValidator.validate(invalid);
+            return true;
+        } catch (InvalidProductException e) {
+            return false;
+        }
+    }
+}
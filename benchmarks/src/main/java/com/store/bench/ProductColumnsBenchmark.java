@@ -0,0 +1,87 @@
+package com.store.bench;
+
+import com.store.InventoryStats;
+import com.store.Product;
+import com.store.ProductColumns;
+import com.store.ProductDAO;
+import com.store.ProductFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Filtro y estadísticas sobre el catálogo en memoria: lista de {@link Product} recorrida
+ * con streams (como hacía {@code Main}) frente a la instantánea por columnas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductColumnsBenchmark {
+
+    private static final int LOW_STOCK = 3;
+
+    @Param({"100000", "1000000"})
+    public int catalogSize;
+
+    private List<Product> catalog;
+    private ProductColumns columns;
+    private ProductFilter filter;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkData.startDatabase();
+        ProductDAO dao = new ProductDAO();
+        BenchmarkData.populate(dao, catalogSize);
+        catalog = dao.getAllProducts();
+        columns = ProductColumns.load(dao);
+        filter = new ProductFilter().setCategory("Libros").setMinStock(5).setMaxPrice(60.0);
+    }
+
+    @Benchmark
+    public long listFilterAndStats() {
+        List<Product> selected = catalog.stream()
+            .filter(filter::matches)
+            .collect(Collectors.toList());
+        long lowStock = selected.stream().filter(p -> p.getStock() < LOW_STOCK).count();
+        double value = selected.stream().mapToDouble(p -> p.getPrice() * p.getStock()).sum();
+        return selected.size() + lowStock + (long) value;
+    }
+
+    @Benchmark
+    public long columnsFilterAndStats() {
+        BitSet selected = columns.select(filter);
+        InventoryStats stats = columns.aggregate(selected, LOW_STOCK);
+        return stats.getProductCount() + stats.getLowStockCount() + (long) stats.getTotalValue();
+    }
+
+    @Benchmark
+    public Map<String, InventoryStats> listStatsByCategory() {
+        return catalog.stream().collect(Collectors.groupingBy(Product::getCategory,
+            Collectors.reducing(InventoryStats.EMPTY,
+                p -> new InventoryStats(1, p.getStock() < LOW_STOCK ? 1 : 0, p.getPrice() * p.getStock()),
+                InventoryStats::plus)));
+    }
+
+    @Benchmark
+    public Map<String, InventoryStats> columnsStatsByCategory() {
+        return columns.aggregateByCategory(LOW_STOCK);
+    }
+}
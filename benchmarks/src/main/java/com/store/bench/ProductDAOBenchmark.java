@@ -0,0 +1,102 @@
+package com.store.bench;
+
+import com.store.DatabaseConnection;
+import com.store.InvalidProductException;
+import com.store.Product;
+import com.store.ProductDAO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operaciones CRUD de {@link ProductDAO} contra H2 embebido en modo MySQL.
+ * Mide el coste del DAO y del pool sin la red; no sustituye a las medidas con MySQL real.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductDAOBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    // Sin caché: se mide el acceso a la base de datos
+    private final ProductDAO dao = new ProductDAO();
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException, InvalidProductException {
+        BenchmarkData.startDatabase();
+        BenchmarkData.populate(dao, catalogSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseConnection.shutdown();
+    }
+
+    /**
+     * Generador por hilo para elegir filas al azar
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        final SplittableRandom random = new SplittableRandom(42);
+
+        int nextId(int catalogSize) {
+            return 1 + random.nextInt(catalogSize);
+        }
+    }
+
+    @Benchmark
+    public Product getById(Cursor cursor) throws SQLException {
+        return dao.getProductById(cursor.nextId(catalogSize));
+    }
+
+    @Benchmark
+    public List<Product> page(Cursor cursor) throws SQLException {
+        return dao.getProductsPage(cursor.nextId(catalogSize) - 1, 200);
+    }
+
+    @Benchmark
+    public List<Product> pageAfter(Cursor cursor) throws SQLException {
+        return dao.getProductsAfter(cursor.nextId(catalogSize) - 1, 200);
+    }
+
+    @Benchmark
+    public boolean update(Cursor cursor) throws SQLException, InvalidProductException {
+        Product product = BenchmarkData.product(cursor.nextId(catalogSize) - 1);
+        product.setStock(cursor.random.nextInt(40));
+        return dao.updateProduct(product);
+    }
+
+    @Benchmark
+    public boolean adjustStock(Cursor cursor) throws SQLException {
+        return dao.tryAdjustStock(cursor.nextId(catalogSize), 1);
+    }
+
+    /**
+     * Inserción seguida de borrado para que el tamaño del catálogo no cambie
+     */
+    @Benchmark
+    public boolean insertDelete() throws SQLException, InvalidProductException {
+        Product product = dao.addProduct(new Product("Temporal", 1.0, 1, "Otros", "Producto temporal"));
+        return dao.deleteProduct(product.getId());
+    }
+}
@@ -0,0 +1,93 @@
+package com.store.bench;
+
+import com.store.InvalidProductException;
+import com.store.Product;
+import com.store.ProductPageSource;
+import com.store.ProductTableModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.SwingUtilities;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Llenado de la tabla de productos: tiempo hasta que la primera pantalla (o la última,
+ * tras saltar al final) tiene datos. Sustituye al antiguo {@code Main.updateTable}, que
+ * volcaba el catálogo entero en el modelo; ahora el modelo es virtual y carga por páginas.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class TableModelBenchmark {
+
+    /** Filas visibles en la ventana principal */
+    private static final int VISIBLE_ROWS = 40;
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    private List<Product> catalog;
+    private ProductTableModel model;
+
+    @Setup(Level.Trial)
+    public void setup() throws InvalidProductException, InterruptedException, InvocationTargetException {
+        catalog = BenchmarkData.catalog(catalogSize);
+        SwingUtilities.invokeAndWait(() -> model = new ProductTableModel());
+    }
+
+    @Benchmark
+    public Product firstScreen() throws InterruptedException, InvocationTargetException {
+        setSource();
+        return awaitRow(0, VISIBLE_ROWS);
+    }
+
+    @Benchmark
+    public Product lastScreen() throws InterruptedException, InvocationTargetException {
+        setSource();
+        return awaitRow(catalogSize - VISIBLE_ROWS, VISIBLE_ROWS);
+    }
+
+    private void setSource() throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(() -> model.setSource(ProductPageSource.fromList(catalog)));
+    }
+
+    /**
+     * Lee desde el EDT, como lo haría la tabla al repintar, hasta que las filas están cargadas
+     */
+    private Product awaitRow(int firstRow, int rows) throws InterruptedException, InvocationTargetException {
+        Product[] last = new Product[1];
+        while (true) {
+            SwingUtilities.invokeAndWait(() -> {
+                last[0] = null;
+                if (model.getRowCount() == 0) {
+                    return;
+                }
+                for (int row = firstRow; row < firstRow + rows; row++) {
+                    last[0] = model.getProductAt(row);
+                    if (last[0] == null) {
+                        return;
+                    }
+                }
+            });
+            if (last[0] != null) {
+                return last[0];
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
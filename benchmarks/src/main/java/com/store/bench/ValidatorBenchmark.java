@@ -0,0 +1,107 @@
+package com.store.bench;
+
+import com.store.InvalidProductException;
+import com.store.ProductValidator;
+import com.store.ValidationResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validación de un fichero de proveedor con filas erróneas: excepciones
+ * ({@code validate*}) frente a {@link ValidationResult} reutilizable ({@code check}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidatorBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    /** Porcentaje de filas con algún campo erróneo */
+    @Param({"10", "90"})
+    public int invalidPercent;
+
+    private String[] names;
+    private double[] prices;
+    private int[] stocks;
+    private String[] categories;
+    private String[] descriptions;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(7);
+        names = new String[ROWS];
+        prices = new double[ROWS];
+        stocks = new int[ROWS];
+        categories = new String[ROWS];
+        descriptions = new String[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            names[i] = "Producto " + i;
+            prices[i] = 1 + (i % 500) * 0.25;
+            stocks[i] = i % 40;
+            categories[i] = BenchmarkData.CATEGORIES[i % BenchmarkData.CATEGORIES.length];
+            descriptions[i] = "Artículo de segunda mano número " + i;
+            if (random.nextInt(100) < invalidPercent) {
+                switch (random.nextInt(4)) {
+                    case 0:
+                        names[i] = "   ";
+                        break;
+                    case 1:
+                        prices[i] = -prices[i];
+                        break;
+                    case 2:
+                        stocks[i] = -1;
+                        break;
+                    default:
+                        descriptions[i] = "";
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int throwing() {
+        int valid = 0;
+        for (int i = 0; i < ROWS; i++) {
+            try {
+                ProductValidator.validateName(names[i]);
+                ProductValidator.validatePrice(prices[i]);
+                ProductValidator.validateStock(stocks[i]);
+                ProductValidator.validateCategory(categories[i]);
+                ProductValidator.validateDescription(descriptions[i]);
+                valid++;
+            } catch (InvalidProductException e) {
+                // Fila rechazada
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public int resultCodes() {
+        ValidationResult result = new ValidationResult();
+        int valid = 0;
+        for (int i = 0; i < ROWS; i++) {
+            if (ProductValidator.check(names[i], prices[i], stocks[i], categories[i], descriptions[i], result)) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+}
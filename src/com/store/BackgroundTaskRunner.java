@@ -0,0 +1,173 @@
+package com.store;
+
+import javax.swing.SwingUtilities;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Ejecuta las operaciones de base de datos fuera del EDT.
+ *
+ * Las tareas con la misma clave se sustituyen entre sí: al enviar una nueva se
+ * cancela la anterior y, si esta llega a terminar, su resultado se descarta. Los
+ * callbacks de éxito y error se ejecutan siempre en el EDT.
+ */
+public class BackgroundTaskRunner {
+
+    /**
+     * Operación que se ejecuta en un hilo de fondo
+     */
+    public interface Task<T> {
+        T call() throws Exception;
+    }
+
+    // Espera en la cola hasta empezar, duración de la tarea y del callback en el EDT
+    private static final OperationMetrics QUEUE_WAIT = StoreMetrics.operation("tasks.queueWait");
+    private static final OperationMetrics RUN = StoreMetrics.operation("tasks.run");
+    private static final OperationMetrics EDT_CALLBACK = StoreMetrics.operation("tasks.edtCallback");
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Future<?>> runningByKey = new HashMap<>();
+    private final Map<String, Integer> generationByKey = new HashMap<>();
+    private final AtomicInteger activeTasks = new AtomicInteger();
+    private IntConsumer activityListener = count -> { };
+
+    /**
+     * @param threads hilos de trabajo (conviene que no supere el tamaño del pool de conexiones)
+     * @param queueCapacity tareas que pueden quedar en espera antes de rechazar nuevas
+     */
+    public BackgroundTaskRunner(int threads, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+                Thread t = new Thread(r, "dao-worker-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Recibe en el EDT el número de tareas en curso cada vez que cambia,
+     * para mostrar o esconder un indicador de progreso
+     */
+    public void setActivityListener(IntConsumer activityListener) {
+        this.activityListener = activityListener;
+    }
+
+    /**
+     * Ejecuta una tarea que no se cancela por otras (guardar, eliminar...)
+     */
+    public <T> void submit(Task<T> task, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        submit(null, task, onSuccess, onError);
+    }
+
+    /**
+     * Ejecuta una tarea en segundo plano. Debe llamarse desde el EDT.
+     * @param key clave de sustitución; si hay otra tarea con la misma clave en curso se cancela
+     *            y solo se aplica el resultado de la más reciente ({@code null} para no sustituir)
+     */
+    public <T> void submit(String key, Task<T> task, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        int generation;
+        if (key != null) {
+            cancel(key);
+            generation = generationByKey.get(key);
+        } else {
+            generation = 0;
+        }
+
+        // done() se ejecuta tanto si la tarea termina como si se cancela antes de empezar
+        long submitted = System.nanoTime();
+        FutureTask<T> future = new FutureTask<T>(task::call) {
+            @Override
+            public void run() {
+                QUEUE_WAIT.success(submitted, 0);
+                long start = System.nanoTime();
+                super.run();
+                RUN.success(start, 0);
+            }
+
+            @Override
+            protected void done() {
+                SwingUtilities.invokeLater(() -> complete(this, key, generation, onSuccess, onError));
+            }
+        };
+        changeActivity(1);
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            changeActivity(-1);
+            onError.accept(new Exception("Demasiadas operaciones pendientes, inténtelo de nuevo", e));
+            return;
+        }
+        if (key != null) {
+            runningByKey.put(key, future);
+        }
+    }
+
+    /**
+     * Cancela la tarea en curso con esa clave, si la hay, y descarta su resultado
+     */
+    public void cancel(String key) {
+        Future<?> previous = runningByKey.remove(key);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+        generationByKey.merge(key, 1, Integer::sum);
+    }
+
+    /**
+     * Detiene los hilos de trabajo esperando como máximo el tiempo indicado
+     */
+    public void shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> void complete(FutureTask<T> future, String key, int generation,
+                              Consumer<T> onSuccess, Consumer<Exception> onError) {
+        changeActivity(-1);
+        if (key != null) {
+            if (generationByKey.get(key) != generation) {
+                return; // Ya hay una petición más reciente con la misma clave
+            }
+            runningByKey.remove(key);
+        }
+        if (future.isCancelled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            onError.accept(cause instanceof Exception ? (Exception) cause : new Exception(cause));
+            EDT_CALLBACK.success(start, 0);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        onSuccess.accept(result);
+        EDT_CALLBACK.success(start, 0);
+    }
+
+    private void changeActivity(int delta) {
+        activityListener.accept(activeTasks.addAndGet(delta));
+    }
+}
@@ -0,0 +1,106 @@
+package com.store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Resultado de una operación por lotes: filas aplicadas y filas rechazadas
+ */
+public class BatchResult {
+    private int processedCount;
+    private final List<Failure> failures = new ArrayList<>();
+    private boolean sorted = true;
+
+    void addProcessed(int count) {
+        processedCount += count;
+    }
+
+    void addFailure(int index, Product product, String message) {
+        add(new Failure(index, product, message, null));
+    }
+
+    /**
+     * Fila rechazada por validación; el mensaje se compone solo si se pide
+     */
+    void addFailure(int index, Product product, ValidationResult validation) {
+        add(new Failure(index, product, null, validation.copy()));
+    }
+
+    private void add(Failure failure) {
+        if (!failures.isEmpty() && failures.get(failures.size() - 1).getIndex() > failure.getIndex()) {
+            sorted = false;
+        }
+        failures.add(failure);
+    }
+
+    /**
+     * Número de filas escritas en la base de datos
+     */
+    public int getProcessedCount() {
+        return processedCount;
+    }
+
+    /**
+     * Filas rechazadas, en el orden de la lista de entrada. Se registran por fases (primero
+     * las inválidas, luego las que rechaza la base de datos), así que se ordenan al pedirlas.
+     */
+    public List<Failure> getFailures() {
+        if (!sorted) {
+            failures.sort(Comparator.comparingInt(Failure::getIndex));
+            sorted = true;
+        }
+        return Collections.unmodifiableList(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchResult{procesados=%d, fallidos=%d}", processedCount, failures.size());
+    }
+
+    /**
+     * Fila rechazada junto con su posición en la lista original y el motivo
+     */
+    public static class Failure {
+        private final int index;
+        private final Product product;
+        private final String message;
+        private final ValidationResult validation;
+
+        Failure(int index, Product product, String message, ValidationResult validation) {
+            this.index = index;
+            this.product = product;
+            this.message = message;
+            this.validation = validation;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public String getMessage() {
+            return message != null ? message : validation.getMessage();
+        }
+
+        /**
+         * Errores de validación de la fila, o {@code null} si se rechazó por otro motivo
+         */
+        public ValidationResult getValidation() {
+            return validation;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Fila %d: %s", index, getMessage());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.store;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * {@link ProductDAO} con una caché de lectura para {@link #getProductById(int)}.
+ *
+ * Todas las escrituras invalidan el producto afectado al terminar (también si fallan),
+ * de modo que después de una escritura local nunca se devuelve el valor anterior.
+ * Los cambios hechos por otros clientes se ven como muy tarde al caducar la entrada, o antes
+ * si {@link ProductChangeFeed} los publica.
+ */
+public class CachingProductDAO extends ProductDAO {
+
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final long DEFAULT_TTL_MILLIS = 60_000L;
+
+    private final ProductCache cache;
+
+    public CachingProductDAO() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS);
+    }
+
+    public CachingProductDAO(int maxEntries, long ttlMillis) {
+        this.cache = new ProductCache(maxEntries, ttlMillis);
+    }
+
+    public ProductCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Obtiene un producto de la caché o, si no está, de la base de datos.
+     * Devuelve siempre una copia que el llamador puede modificar.
+     */
+    @Override
+    public Product getProductById(int id) throws SQLException {
+        Product cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = cache.stamp(id);
+        Product product = super.getProductById(id);
+        if (product != null) {
+            cache.putIfUnchanged(product, stamp);
+        }
+        return product;
+    }
+
+    @Override
+    public boolean updateProduct(Product product) throws SQLException, InvalidProductException {
+        try {
+            return super.updateProduct(product);
+        } finally {
+            cache.invalidate(product.getId());
+        }
+    }
+
+    @Override
+    public boolean deleteProduct(int id) throws SQLException {
+        try {
+            return super.deleteProduct(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean updateStock(int productId, int newStock) throws SQLException, InvalidProductException {
+        try {
+            return super.updateStock(productId, newStock);
+        } finally {
+            cache.invalidate(productId);
+        }
+    }
+
+    @Override
+    public boolean addToStock(int productId, int quantity) throws SQLException, InvalidProductException {
+        try {
+            return super.addToStock(productId, quantity);
+        } finally {
+            cache.invalidate(productId);
+        }
+    }
+
+    @Override
+    public boolean tryAdjustStock(int productId, int delta) throws SQLException {
+        try {
+            return super.tryAdjustStock(productId, delta);
+        } finally {
+            cache.invalidate(productId);
+        }
+    }
+
+    @Override
+    public List<Integer> adjustStocks(List<StockAdjustment> adjustments) throws SQLException {
+        try {
+            return super.adjustStocks(adjustments);
+        } finally {
+            for (StockAdjustment adjustment : adjustments) {
+                cache.invalidate(adjustment.getProductId());
+            }
+        }
+    }
+
+    @Override
+    public StockCompaction compactStockMovements(long afterMovementId, int maxMovements) throws SQLException {
+        StockCompaction compaction = super.compactStockMovements(afterMovementId, maxMovements);
+        compaction.getApplied().keySet().forEach(cache::invalidate);
+        return compaction;
+    }
+
+    /**
+     * Los cambios de otros clientes también dejan de servirse desde la caché
+     */
+    @Override
+    public void publishExternalChanges(List<ProductChange> changes) {
+        for (ProductChange change : changes) {
+            cache.invalidate(change.getProductId());
+        }
+        super.publishExternalChanges(changes);
+    }
+
+    @Override
+    public BatchResult updateProducts(List<Product> products) throws SQLException {
+        try {
+            return super.updateProducts(products);
+        } finally {
+            invalidateAll(products);
+        }
+    }
+
+    @Override
+    public BatchResult upsertProducts(List<Product> products) throws SQLException {
+        try {
+            return super.upsertProducts(products);
+        } finally {
+            invalidateAll(products);
+        }
+    }
+
+    private void invalidateAll(List<Product> products) {
+        for (Product product : products) {
+            if (product.getId() > 0) {
+                cache.invalidate(product.getId());
+            }
+        }
+    }
+}
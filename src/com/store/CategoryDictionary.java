@@ -0,0 +1,267 @@
+package com.store;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diccionario de categorías: cada nombre tiene un ID entero pequeño, el mismo que en la
+ * tabla {@code categories}.
+ *
+ * Los productos guardan el ID, así que filtros, agrupaciones y comparaciones por categoría
+ * comparan enteros; el nombre solo se busca para mostrarlo, en un array indexado por ID, y
+ * todos los productos de una categoría comparten la misma instancia del nombre.
+ *
+ * Con conexión el diccionario refleja la tabla y {@link #intern(String)} inserta en ella las
+ * categorías nuevas. Sin conexión ({@link MappedProductStore}) no se carga y
+ * {@link #internLocal(String)} asigna los IDs en memoria; el almacén local guarda el nombre.
+ */
+public final class CategoryDictionary {
+
+    /** ID de un producto cuya categoría todavía no está en el diccionario */
+    public static final int UNKNOWN = 0;
+
+    /** Categorías con las que se rellena una tabla {@code categories} vacía, en el orden de la interfaz */
+    static final String[] DEFAULT_CATEGORIES = {"Muebles", "Música", "Electrónica", "Ropa", "Decoración",
+        "Libros", "Hogar", "Deportes", "Juguetes", "Joyería"};
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    // Nombre por ID; se sustituye entero al añadir una categoría, así que se puede leer sin bloqueo
+    private static volatile String[] names = new String[0];
+    private static volatile boolean persistent;
+
+    private CategoryDictionary() {
+    }
+
+    /**
+     * ID de una categoría, o {@link #UNKNOWN} si no está en el diccionario
+     */
+    public static int idOf(String name) {
+        Integer id = name == null ? null : IDS.get(name);
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * Nombre de una categoría, o {@code null} si el ID no está en el diccionario
+     */
+    public static String nameOf(int id) {
+        String[] current = names;
+        return id > 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * Nombres de todas las categorías en orden de ID
+     */
+    public static List<String> names() {
+        List<String> result = new ArrayList<>();
+        for (String name : names) {
+            if (name != null) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Nombres indexados por ID, con nombre para todos los IDs indicados; si falta alguno
+     * (categoría creada por otro cliente) se recarga el diccionario una vez
+     * @throws SQLException si alguno de los IDs no existe
+     */
+    static String[] namesFor(BitSet categoryIds) throws SQLException {
+        String[] current = names;
+        if (!coversAll(current, categoryIds)) {
+            load();
+            current = names;
+            if (!coversAll(current, categoryIds)) {
+                throw new SQLException("Categorías desconocidas en los productos");
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Nombre de una categoría; si no se conoce (la ha creado otro cliente) se recarga el diccionario
+     * @throws SQLException si la categoría no existe
+     */
+    public static String lookup(int id) throws SQLException {
+        String name = nameOf(id);
+        if (name == null) {
+            load();
+            name = nameOf(id);
+            if (name == null) {
+                throw new SQLException("Categoría desconocida con ID: " + id);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * ID de una categoría, insertándola en la tabla {@code categories} si no existe.
+     * La primera llamada carga el diccionario si no se había cargado.
+     */
+    public static int intern(String name) throws SQLException {
+        Integer id = IDS.get(name);
+        if (id != null && persistent) {
+            return id;
+        }
+        synchronized (CategoryDictionary.class) {
+            if (!persistent) {
+                load();
+            }
+            id = IDS.get(name);
+            if (id != null) {
+                return id;
+            }
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                int stored = find(conn, name);
+                if (stored == UNKNOWN) {
+                    stored = insert(conn, name);
+                }
+                IDS.put(name, stored);
+                return stored;
+            }
+        }
+    }
+
+    /**
+     * ID de una categoría para el almacén local: si el diccionario no se ha cargado de la base
+     * de datos, las categorías nuevas reciben el siguiente ID solo en memoria
+     */
+    public static int internLocal(String name) throws SQLException {
+        Integer id = IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (CategoryDictionary.class) {
+            if (persistent) {
+                return intern(name);
+            }
+            id = IDS.get(name);
+            if (id != null) {
+                return id;
+            }
+            int localId = Math.max(names.length, 1);
+            register(localId, name);
+            return localId;
+        }
+    }
+
+    /**
+     * Asigna su ID a un producto cuya categoría no estaba en el diccionario al fijarla,
+     * insertándola en la base de datos
+     */
+    public static int resolve(Product product) throws SQLException {
+        int id = product.getCategoryId();
+        if (id == UNKNOWN) {
+            id = intern(product.getCategory());
+            product.resolveCategory(id);
+        }
+        return id;
+    }
+
+    /**
+     * Igual que {@link #resolve(Product)}, pero con {@link #internLocal(String)}
+     */
+    public static int resolveLocal(Product product) throws SQLException {
+        int id = product.getCategoryId();
+        if (id == UNKNOWN) {
+            id = internLocal(product.getCategory());
+            product.resolveCategory(id);
+        }
+        return id;
+    }
+
+    /**
+     * Carga (o recarga) todas las categorías de la base de datos. Los IDs asignados antes en
+     * memoria con {@link #internLocal(String)} dejan de ser válidos.
+     */
+    public static void load() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        List<String> loaded = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, name FROM categories ORDER BY id")) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+                loaded.add(rs.getString(2));
+            }
+        }
+        synchronized (CategoryDictionary.class) {
+            if (!persistent) {
+                IDS.clear();
+                names = new String[0];
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                register(ids.get(i), loaded.get(i));
+            }
+            persistent = true;
+        }
+    }
+
+    private static int find(Connection conn, String name) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT id, name FROM categories WHERE name = ?")) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return UNKNOWN;
+                }
+                // La intercalación de MySQL puede dar por igual un nombre escrito de otra forma
+                register(rs.getInt(1), rs.getString(2));
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static int insert(Connection conn, String name) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO categories (name) VALUES (?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, name);
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("La creación de la categoría falló, no se obtuvo el ID.");
+                }
+                register(keys.getInt(1), name);
+                return keys.getInt(1);
+            }
+        } catch (SQLException e) {
+            // Otro cliente la ha creado a la vez: clave duplicada
+            if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                int id = find(conn, name);
+                if (id != UNKNOWN) {
+                    return id;
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static void register(int id, String name) {
+        String[] current = names;
+        if (id < current.length && name.equals(current[id])) {
+            IDS.put(name, id);
+            return;
+        }
+        String[] updated = Arrays.copyOf(current, Math.max(current.length, id + 1));
+        updated[id] = name;
+        names = updated;
+        IDS.put(name, id);
+    }
+
+    private static boolean coversAll(String[] current, BitSet categoryIds) {
+        for (int id = categoryIds.nextSetBit(0); id >= 0; id = categoryIds.nextSetBit(id + 1)) {
+            if (id >= current.length || current[id] == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
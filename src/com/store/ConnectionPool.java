@@ -0,0 +1,294 @@
+package com.store;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool acotado de conexiones JDBC reutilizables.
+ *
+ * Las conexiones se prestan con {@link #borrow()} y vuelven al pool al llamar a
+ * {@code close()} sobre el objeto devuelto, de modo que el código existente con
+ * try-with-resources no necesita cambios.
+ */
+public class ConnectionPool implements AutoCloseable, ConnectionPoolMBean {
+
+    private final String url;
+    private final Properties connectionProperties;
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int validationTimeoutSeconds;
+
+    // LIFO: la conexión usada más recientemente es la que menos probabilidad tiene de estar caída
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+    private final OperationMetrics acquireMetrics = new OperationMetrics("connection.acquire");
+
+    public ConnectionPool(String url, Properties connectionProperties, int maxSize, int minIdle,
+                          long idleTimeoutMillis, long borrowTimeoutMillis,
+                          long validationIntervalMillis, int validationTimeoutSeconds) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo del pool debe ser positivo");
+        }
+        this.url = url;
+        this.connectionProperties = connectionProperties;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(Math.max(minIdle, 0), maxSize);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(idleTimeoutMillis / 2, 1000);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Obtiene una conexión del pool, abriendo una nueva solo si no hay ninguna libre
+     * y no se ha alcanzado el tamaño máximo.
+     * @throws SQLTimeoutException si se agota el tiempo de espera
+     * @throws SQLException si falla la conexión
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection conn = acquire();
+            acquireMetrics.success(start, 0);
+            return conn;
+        } catch (SQLException | RuntimeException e) {
+            acquireMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    private Connection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("El pool de conexiones está cerrado");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException(String.format(
+                    "Tiempo de espera agotado (%d ms) al obtener una conexión del pool (máximo %d)",
+                    borrowTimeoutMillis, maxSize));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras se esperaba una conexión", e);
+        }
+
+        try {
+            PooledEntry entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (isUsable(entry)) {
+                    break;
+                }
+                discard(entry);
+            }
+            if (entry == null) {
+                entry = new PooledEntry(DriverManager.getConnection(url, connectionProperties));
+                totalConnections.incrementAndGet();
+            }
+            activeConnections.incrementAndGet();
+            return entry.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Comprueba el estado del pool reutilizando una conexión existente
+     * (solo abre una si el pool está vacío).
+     */
+    public boolean healthCheck() {
+        try (Connection conn = borrow()) {
+            return conn.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            System.err.println("Error al conectar con la base de datos: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Tiempo de espera para obtener una conexión (incluye abrirla si no había ninguna libre)
+     */
+    public OperationMetrics getAcquireMetrics() {
+        return acquireMetrics;
+    }
+
+    @Override
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return activeConnections.get();
+    }
+
+    @Override
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public int getTotalCount() {
+        return totalConnections.get();
+    }
+
+    /**
+     * Cierra todas las conexiones libres; las prestadas se cierran al devolverse.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            discard(entry);
+        }
+    }
+
+    private boolean isUsable(PooledEntry entry) {
+        try {
+            if (entry.physical.isClosed()) {
+                return false;
+            }
+            // Una conexión usada hace muy poco no necesita un ping adicional
+            if (System.currentTimeMillis() - entry.lastUsed < validationIntervalMillis) {
+                return true;
+            }
+            return entry.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledEntry entry) {
+        activeConnections.decrementAndGet();
+        try {
+            boolean reusable = !closed && !entry.physical.isClosed();
+            if (reusable && !entry.physical.getAutoCommit()) {
+                // Restaurar el estado por defecto para el siguiente usuario
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+            if (reusable) {
+                entry.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(entry);
+            } else {
+                discard(entry);
+            }
+        } catch (SQLException e) {
+            discard(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledEntry> it = idle.descendingIterator(); // las más antiguas primero
+        while (it.hasNext() && idle.size() > minIdle) {
+            PooledEntry entry = it.next();
+            if (now - entry.lastUsed > idleTimeoutMillis && idle.remove(entry)) {
+                discard(entry);
+            }
+        }
+    }
+
+    private void discard(PooledEntry entry) {
+        totalConnections.decrementAndGet();
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            // La conexión ya no es utilizable, no hay nada más que hacer
+        }
+    }
+
+    /**
+     * Conexión física junto con los datos de gestión del pool.
+     */
+    private class PooledEntry {
+        final Connection physical;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        PooledEntry(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * Intercepta {@code close()} para devolver la conexión al pool en lugar de cerrarla.
+     */
+    private class LeaseHandler implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean returned;
+
+        LeaseHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("La conexión ya fue devuelta al pool");
+                    }
+                    try {
+                        return method.invoke(entry.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.store;
+
+/**
+ * Atributos JMX del pool de conexiones
+ */
+public interface ConnectionPoolMBean {
+    int getMaxSize();
+
+    int getActiveCount();
+
+    int getIdleCount();
+
+    int getTotalCount();
+}
@@ -1,30 +1,179 @@
 package com.store;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Punto de acceso a las conexiones de la base de datos.
+ *
+ * La configuración se lee, por orden de prioridad, de las propiedades del sistema
+ * ({@code -Dstore.db.url=...}), del fichero indicado en {@code store.db.config}
+ * (por defecto {@code db.properties} en el directorio de trabajo) y, por último,
+ * de los valores por defecto de esta clase.
+ */
 public class DatabaseConnection {
     private static final String URL = "jdbc:mysql://localhost:3306/store_db";
     private static final String USER = "root"; // Usuario
     private static final String PASSWORD = "Movistar04"; // Contraseña
 
+    private static final String CONFIG_FILE_PROPERTY = "store.db.config";
+    private static final String DEFAULT_CONFIG_FILE = "db.properties";
+
+    private static volatile ConnectionPool pool;
+
+    // Se cierran al terminar la JVM antes que el pool, en orden inverso al de registro
+    private static final List<AutoCloseable> CLOSE_AT_EXIT = new CopyOnWriteArrayList<>();
+
+    /**
+     * Obtiene una conexión del pool. Al cerrarla vuelve al pool para reutilizarse.
+     */
     public static Connection getConnection() throws SQLException {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL JDBC Driver no encontrado", e);
+        return getPool().borrow();
+    }
+
+    /**
+     * Devuelve el pool de conexiones, creándolo en el primer uso
+     */
+    public static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    current = createPool(loadConfiguration());
+                    pool = current;
+                    Runtime.getRuntime().addShutdownHook(new Thread(DatabaseConnection::shutdownAtExit, "db-pool-shutdown"));
+                }
+            }
         }
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        return current;
+    }
+
+    /**
+     * Devuelve el pool si ya existe, sin crearlo
+     * @return el pool, o {@code null} si todavía no se ha usado o ya se ha cerrado
+     */
+    public static ConnectionPool currentPool() {
+        return pool;
     }
 
-    // Método para probar la conexión
+    // Método para probar la conexión: comprueba el pool sin abrir conexiones adicionales
     public static boolean testConnection() {
-        try (Connection conn = getConnection()) {
-            return true;
-        } catch (SQLException e) {
-            System.err.println("Error al conectar con la base de datos: " + e.getMessage());
-            return false;
+        return getPool().healthCheck();
+    }
+
+    /**
+     * Registra un recurso que debe cerrarse al terminar la JVM mientras el pool sigue abierto
+     * (por ejemplo, para escribir un búfer). Los ganchos de cierre de la JVM se ejecutan a la
+     * vez, así que uno propio podría encontrarse el pool ya cerrado.
+     */
+    public static void closeAtExit(AutoCloseable resource) {
+        CLOSE_AT_EXIT.add(0, resource);
+    }
+
+    private static void shutdownAtExit() {
+        for (AutoCloseable resource : CLOSE_AT_EXIT) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                System.err.println("Error al cerrar " + resource + ": " + e.getMessage());
+            }
+        }
+        CLOSE_AT_EXIT.clear();
+        shutdown();
+    }
+
+    /**
+     * Cierra el pool y todas sus conexiones libres
+     */
+    public static void shutdown() {
+        ConnectionPool current;
+        synchronized (DatabaseConnection.class) {
+            current = pool;
+            pool = null;
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private static ConnectionPool createPool(Properties config) {
+        String url = config.getProperty("store.db.url", URL);
+
+        Properties connectionProperties = new Properties();
+        connectionProperties.setProperty("user", config.getProperty("store.db.user", USER));
+        connectionProperties.setProperty("password", config.getProperty("store.db.password", PASSWORD));
+
+        if (url.startsWith("jdbc:mysql:")) {
+            try {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("MySQL JDBC Driver no encontrado", e);
+            }
+            // Caché de sentencias preparadas por conexión (lado cliente y servidor)
+            connectionProperties.setProperty("cachePrepStmts", "true");
+            connectionProperties.setProperty("useServerPrepStmts", "true");
+            connectionProperties.setProperty("prepStmtCacheSize",
+                config.getProperty("store.db.pool.statementCacheSize", "250"));
+            connectionProperties.setProperty("prepStmtCacheSqlLimit", "2048");
+            connectionProperties.setProperty("cacheServerConfiguration", "true");
+            // Los lotes de INSERT se reescriben como sentencias multi-fila
+            connectionProperties.setProperty("rewriteBatchedStatements", "true");
+        }
+
+        return new ConnectionPool(
+            url,
+            connectionProperties,
+            intProperty(config, "store.db.pool.maxSize", 10),
+            intProperty(config, "store.db.pool.minIdle", 1),
+            longProperty(config, "store.db.pool.idleTimeoutMs", 300_000L),
+            longProperty(config, "store.db.pool.borrowTimeoutMs", 5_000L),
+            longProperty(config, "store.db.pool.validationIntervalMs", 1_000L),
+            intProperty(config, "store.db.pool.validationTimeoutSec", 2)
+        );
+    }
+
+    private static Properties loadConfiguration() {
+        Properties config = new Properties();
+        Path file = Paths.get(System.getProperty(CONFIG_FILE_PROPERTY, DEFAULT_CONFIG_FILE));
+        if (Files.isReadable(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                config.load(in);
+            } catch (IOException e) {
+                System.err.println("No se pudo leer la configuración " + file + ": " + e.getMessage());
+            }
+        }
+        // Las propiedades del sistema tienen prioridad sobre el fichero
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("store.db.")) {
+                config.setProperty(name, System.getProperty(name));
+            }
+        }
+        return config;
+    }
+
+    private static int intProperty(Properties config, String name, int defaultValue) {
+        return (int) longProperty(config, name, defaultValue);
+    }
+
+    private static long longProperty(Properties config, String name, long defaultValue) {
+        String value = config.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor no válido para " + name + ": " + value);
+            return defaultValue;
         }
     }
 }
@@ -0,0 +1,162 @@
+package com.store;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Crea los índices y estructuras auxiliares que necesita la aplicación
+ * si todavía no existen en la base de datos. Es seguro llamarlo en cada arranque.
+ */
+public class DatabaseSchema {
+
+    /**
+     * Comprueba el esquema y aplica los cambios que falten
+     */
+    public static void ensureSchema() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // Categorías normalizadas: cada producto guarda el ID de su categoría
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS categories ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "name VARCHAR(50) NOT NULL, "
+                    + "CONSTRAINT uk_categories_name UNIQUE (name))");
+            }
+            migrateCategories(conn);
+
+            // Filtrado por categoría: WHERE category_id = ? ORDER BY id usa este índice
+            // (InnoDB añade la clave primaria a cada índice secundario)
+            ensureIndex(conn, "products", "idx_products_category_id", "category_id");
+            if (!foreignKeyExists(conn, "products", "fk_products_category")) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate("ALTER TABLE products ADD CONSTRAINT fk_products_category "
+                        + "FOREIGN KEY (category_id) REFERENCES categories (id)");
+                }
+            }
+
+            // Diario de movimientos de stock: solo se añaden filas
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS stock_movements ("
+                    + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "product_id INT NOT NULL, "
+                    + "delta INT NOT NULL, "
+                    + "reason VARCHAR(50), "
+                    + "created_at TIMESTAMP(3) NOT NULL, "
+                    + "applied BOOLEAN NOT NULL DEFAULT FALSE)");
+            }
+            ensureIndex(conn, "stock_movements", "idx_movements_pending", "applied, id");
+            ensureIndex(conn, "stock_movements", "idx_movements_product", "product_id, id");
+
+            // Registro de cambios para los demás clientes: la base de datos mantiene updated_at
+            // en cada escritura y los borrados dejan una lápida
+            if (!columnExists(conn, "products", "updated_at")) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate("ALTER TABLE products ADD COLUMN updated_at TIMESTAMP(3) NOT NULL "
+                        + "DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)");
+                }
+            }
+            ensureIndex(conn, "products", "idx_products_updated", "updated_at, id");
+
+            // Control optimista de concurrencia: cada escritura incrementa la versión
+            if (!columnExists(conn, "products", "version")) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate("ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0");
+                }
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS product_tombstones ("
+                    + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "product_id INT NOT NULL, "
+                    + "deleted_at TIMESTAMP(3) NOT NULL)");
+            }
+            ensureIndex(conn, "product_tombstones", "idx_tombstones_deleted", "deleted_at, product_id");
+        }
+    }
+
+    /**
+     * Sustituye la columna de texto {@code category} por {@code category_id}. Cada paso
+     * comprueba si ya está hecho, así que una migración interrumpida se completa en el
+     * siguiente arranque.
+     */
+    private static void migrateCategories(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            // Las categorías de la interfaz, en su orden, antes que las que aparezcan en los productos
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM categories")) {
+                rs.next();
+                if (rs.getInt(1) == 0) {
+                    try (PreparedStatement insert = conn.prepareStatement("INSERT INTO categories (name) VALUES (?)")) {
+                        for (String name : CategoryDictionary.DEFAULT_CATEGORIES) {
+                            insert.setString(1, name);
+                            insert.addBatch();
+                        }
+                        insert.executeBatch();
+                    }
+                }
+            }
+            if (!columnExists(conn, "products", "category_id")) {
+                stmt.executeUpdate("ALTER TABLE products ADD COLUMN category_id INT");
+            }
+            if (columnExists(conn, "products", "category")) {
+                stmt.executeUpdate("INSERT INTO categories (name) SELECT DISTINCT p.category FROM products p "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM categories c WHERE c.name = p.category)");
+                stmt.executeUpdate("UPDATE products SET category_id = "
+                    + "(SELECT c.id FROM categories c WHERE c.name = products.category) WHERE category_id IS NULL");
+                if (indexExists(conn, "products", "idx_products_category")) {
+                    stmt.executeUpdate("ALTER TABLE products DROP INDEX idx_products_category");
+                }
+                stmt.executeUpdate("ALTER TABLE products DROP COLUMN category");
+            }
+            if (isNullable(conn, "products", "category_id")) {
+                stmt.executeUpdate("ALTER TABLE products MODIFY category_id INT NOT NULL");
+            }
+        }
+    }
+
+    private static boolean isNullable(Connection conn, String table, String column) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, table, column)) {
+            return rs.next() && rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable;
+        }
+    }
+
+    private static boolean foreignKeyExists(Connection conn, String table, String name) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getImportedKeys(conn.getCatalog(), null, table)) {
+            while (rs.next()) {
+                if (name.equalsIgnoreCase(rs.getString("FK_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, table, column)) {
+            return rs.next();
+        }
+    }
+
+    private static void ensureIndex(Connection conn, String table, String indexName, String columns)
+            throws SQLException {
+        if (indexExists(conn, table, indexName)) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE INDEX " + indexName + " ON " + table + " (" + columns + ")");
+        }
+    }
+
+    private static boolean indexExists(Connection conn, String table, String indexName) throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+        try (ResultSet rs = metaData.getIndexInfo(conn.getCatalog(), null, table, false, true)) {
+            while (rs.next()) {
+                if (indexName.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,614 @@
+package com.store;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Modo de línea de órdenes, sin interfaz gráfica, para tareas programadas y servidores sin pantalla.
+ *
+ * Usa el mismo {@link ProductDAO} que la aplicación, pero no carga ninguna clase de AWT ni
+ * Swing. Los datos se leen de un fichero o de la entrada estándar ({@code -}) y se escriben en
+ * la salida estándar; los avisos y errores van a la salida de errores, así que se puede usar
+ * en tuberías:
+ * <pre>
+ *   java -cp ... com.store.InventoryCli export --format jsonl - | gzip &gt; catalogo.jsonl.gz
+ *   cut -d, -f1,4 recuento.csv | java -cp ... com.store.InventoryCli adjust --set -
+ * </pre>
+ * Con Maven: {@code mvn exec:java -Dexec.mainClass=com.store.InventoryCli -Dexec.args="report"}.
+ * Códigos de salida: 0 si todo ha ido bien, 1 si alguna fila se ha rechazado o ha fallado la
+ * base de datos o la escritura, y 2 si la orden no es válida.
+ */
+public class InventoryCli {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    /** Filas por lote en las importaciones */
+    private static final int IMPORT_CHUNK = 1000;
+
+    /** Movimientos acumulados antes de guardarlos en el historial */
+    private static final int MOVEMENT_CHUNK = 1000;
+
+    /** Intentos de adjust --set si otro cliente cambia el producto entre la lectura y la escritura */
+    private static final int SET_STOCK_ATTEMPTS = 3;
+
+    private static final String USAGE = String.join("\n",
+        "Uso: InventoryCli <orden> [opciones]",
+        "",
+        "  import [fichero|-]                  Importa productos desde CSV (id,name,price,stock,category,description);",
+        "                                      las filas sin id se añaden y las demás se sustituyen",
+        "  check [fichero|-]                   Valida un CSV como import, sin conectar a la base de datos",
+        "  export [--format csv|jsonl] [--gzip] [fichero|-]",
+        "                                      Exporta el catálogo (por defecto CSV a la salida estándar)",
+        "  adjust [--set] [--reason motivo] <id> <cantidad>",
+        "  adjust [--set] [--reason motivo] [fichero|-]",
+        "                                      Suma (o con --set fija) el stock; el fichero tiene líneas",
+        "                                      'id,cantidad' o 'id cantidad'",
+        "  report [--top N] [--dead-days D] [--threshold T]",
+        "                                      Informe de inventario en la salida estándar",
+        "",
+        "La conexión se configura con las propiedades store.db.* (-Dstore.db.url=...).");
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    InventoryCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        // Directamente sobre el descriptor: System.out es un PrintStream y se callaría los errores
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 64 * 1024),
+            false, StandardCharsets.UTF_8);
+        PrintStream err = new PrintStream(System.err, true, StandardCharsets.UTF_8);
+        int code;
+        try {
+            code = new InventoryCli(out, err).run(args);
+        } finally {
+            out.flush();
+            DatabaseConnection.shutdown();
+        }
+        if (out.checkError() && code == EXIT_OK) {
+            err.println("Error de escritura en la salida estándar");
+            code = EXIT_FAILED;
+        }
+        System.exit(code);
+    }
+
+    /**
+     * Ejecuta una orden
+     * @return código de salida
+     */
+    int run(String[] args) {
+        if (args.length == 0 || "-h".equals(args[0]) || "--help".equals(args[0])) {
+            err.println(USAGE);
+            return args.length == 0 ? EXIT_USAGE : EXIT_OK;
+        }
+        try {
+            Options options = new Options(args);
+            switch (args[0]) {
+                case "import":
+                    return importProducts(options, true);
+                case "check":
+                    return importProducts(options, false);
+                case "export":
+                    return export(options);
+                case "adjust":
+                    return adjust(options);
+                case "report":
+                    return report(options);
+                default:
+                    err.println("Orden desconocida: " + args[0]);
+                    err.println(USAGE);
+                    return EXIT_USAGE;
+            }
+        } catch (UsageException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        } catch (SQLException e) {
+            err.println("Error de base de datos: " + e.getMessage());
+            return EXIT_FAILED;
+        } catch (IOException e) {
+            err.println("Error de lectura o escritura: " + e.getMessage());
+            return EXIT_FAILED;
+        }
+    }
+
+    /**
+     * Importa (o con {@code write = false} solo valida) un CSV en lotes de {@link #IMPORT_CHUNK} filas
+     */
+    private int importProducts(Options options, boolean write) throws SQLException, IOException, UsageException {
+        String source = options.singleArgument("-");
+        ProductDAO dao = write ? openDatabase() : null;
+        ValidationResult validation = new ValidationResult();
+        List<Product> chunk = new ArrayList<>(IMPORT_CHUNK);
+        List<Integer> chunkLines = new ArrayList<>(IMPORT_CHUNK);
+        int accepted = 0;
+        int rejected = 0;
+
+        try (CsvReader csv = new CsvReader(openInput(source))) {
+            List<String> fields;
+            while ((fields = csv.next()) != null) {
+                int line = csv.getLineNumber();
+                if (line == 1 && !fields.isEmpty() && "id".equalsIgnoreCase(fields.get(0).trim())) {
+                    continue; // Cabecera
+                }
+                if (fields.size() == 1 && fields.get(0).trim().isEmpty()) {
+                    continue;
+                }
+                if (fields.size() != 6) {
+                    rejected++;
+                    err.println("Línea " + line + ": se esperaban 6 campos y hay " + fields.size());
+                    continue;
+                }
+                int id;
+                double price;
+                int stock;
+                try {
+                    id = fields.get(0).trim().isEmpty() ? 0 : Integer.parseInt(fields.get(0).trim());
+                    price = Double.parseDouble(fields.get(2).trim());
+                    stock = Integer.parseInt(fields.get(3).trim());
+                } catch (NumberFormatException e) {
+                    rejected++;
+                    err.println("Línea " + line + ": id, precio o stock no es un número válido");
+                    continue;
+                }
+                if (!ProductValidator.check(fields.get(1), price, stock, fields.get(4), fields.get(5), validation)) {
+                    rejected++;
+                    err.println("Línea " + line + ": " + String.join("; ", validation.getMessages()));
+                    continue;
+                }
+                if (!write) {
+                    accepted++;
+                    continue;
+                }
+                try {
+                    chunk.add(new Product(id, fields.get(1), price, stock, fields.get(4), fields.get(5)));
+                } catch (InvalidProductException e) {
+                    throw new IllegalStateException(e); // Ya se ha validado la fila
+                }
+                chunkLines.add(line);
+                if (chunk.size() == IMPORT_CHUNK) {
+                    int failed = writeChunk(dao, chunk, chunkLines);
+                    accepted += chunk.size() - failed;
+                    rejected += failed;
+                    chunk.clear();
+                    chunkLines.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            int failed = writeChunk(dao, chunk, chunkLines);
+            accepted += chunk.size() - failed;
+            rejected += failed;
+        }
+        err.println((write ? "Importados: " : "Filas válidas: ") + accepted + ", rechazados: " + rejected);
+        return rejected == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    /**
+     * @return número de filas rechazadas por la base de datos
+     */
+    private int writeChunk(ProductDAO dao, List<Product> chunk, List<Integer> lines) throws SQLException {
+        BatchResult result = dao.upsertProducts(chunk);
+        for (BatchResult.Failure failure : result.getFailures()) {
+            err.println("Línea " + lines.get(failure.getIndex()) + ": " + failure.getMessage());
+        }
+        return result.getFailures().size();
+    }
+
+    private int export(Options options) throws SQLException, IOException, UsageException {
+        String target = options.singleArgument("-");
+        String formatName = options.value("--format");
+        boolean gzip = options.flag("--gzip");
+        InventoryExporter.Format format;
+        if (formatName == null) {
+            format = "-".equals(target) ? InventoryExporter.Format.CSV : InventoryExporter.Format.forPath(Paths.get(target));
+        } else if ("csv".equalsIgnoreCase(formatName)) {
+            format = InventoryExporter.Format.CSV;
+        } else if ("jsonl".equalsIgnoreCase(formatName)) {
+            format = InventoryExporter.Format.JSON_LINES;
+        } else {
+            throw new UsageException("Formato desconocido: " + formatName);
+        }
+
+        InventoryExporter exporter = new InventoryExporter(openDatabase());
+        long rows;
+        if ("-".equals(target)) {
+            if (gzip) {
+                throw new UsageException("--gzip solo se aplica a ficheros; en una tubería use gzip");
+            }
+            rows = exporter.export(new CheckedOutput(out), format, null);
+        } else {
+            rows = exporter.export(Paths.get(target), format,
+                gzip || target.toLowerCase().endsWith(".gz"), null);
+        }
+        err.println("Exportados: " + rows);
+        return EXIT_OK;
+    }
+
+    private int adjust(Options options) throws SQLException, IOException, UsageException {
+        boolean set = options.flag("--set");
+        String reason = options.value("--reason");
+        if (reason == null) {
+            reason = StockLedger.REASON_ADJUSTMENT;
+        }
+        List<String> arguments = options.arguments();
+        if (arguments.size() > 2) {
+            throw new UsageException("Demasiados argumentos para adjust");
+        }
+
+        ProductDAO dao = openDatabase();
+        StockMovementDAO movementDAO = new StockMovementDAO();
+        List<StockMovement> movements = new ArrayList<>();
+        int applied = 0;
+        int rejected = 0;
+
+        if (arguments.size() == 2) {
+            int id = parseInt(arguments.get(0), "id");
+            int quantity = parseInt(arguments.get(1), "cantidad");
+            if (applyAdjustment(dao, id, quantity, set, reason, movements)) {
+                applied++;
+            } else {
+                rejected++;
+                err.println("Producto " + id + ": no existe o el stock quedaría en negativo");
+            }
+        } else {
+            String source = arguments.isEmpty() ? "-" : arguments.get(0);
+            try (BufferedReader reader = new BufferedReader(openInput(source))) {
+                String text;
+                int line = 0;
+                while ((text = reader.readLine()) != null) {
+                    line++;
+                    text = text.trim();
+                    if (text.isEmpty() || text.startsWith("#")) {
+                        continue;
+                    }
+                    String[] parts = text.split("[,;\\s]+");
+                    int id;
+                    int quantity;
+                    try {
+                        id = Integer.parseInt(parts[0]);
+                        quantity = Integer.parseInt(parts[1]);
+                    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                        if (line == 1) {
+                            continue; // Cabecera
+                        }
+                        rejected++;
+                        err.println("Línea " + line + ": se esperaba 'id,cantidad'");
+                        continue;
+                    }
+                    if (applyAdjustment(dao, id, quantity, set, reason, movements)) {
+                        applied++;
+                    } else {
+                        rejected++;
+                        err.println("Línea " + line + ": el producto " + id
+                            + " no existe o el stock quedaría en negativo");
+                    }
+                    if (movements.size() >= MOVEMENT_CHUNK) {
+                        movementDAO.insertMovements(movements);
+                        movements.clear();
+                    }
+                }
+            }
+        }
+        movementDAO.insertMovements(movements);
+        err.println("Ajustes aplicados: " + applied + ", rechazados: " + rejected);
+        return rejected == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    /**
+     * Aplica un ajuste y anota en {@code movements} el movimiento ya aplicado, para el historial
+     */
+    private static boolean applyAdjustment(ProductDAO dao, int id, int quantity, boolean set, String reason,
+                                           List<StockMovement> movements) throws SQLException {
+        int delta;
+        if (set) {
+            Integer previous = setStock(dao, id, quantity);
+            if (previous == null) {
+                return false;
+            }
+            delta = quantity - previous;
+        } else if (quantity == 0) {
+            return dao.getProductById(id) != null;
+        } else if (dao.tryAdjustStock(id, quantity)) {
+            delta = quantity;
+        } else {
+            return false;
+        }
+        if (delta != 0) {
+            movements.add(new StockMovement(id, delta, reason, Instant.now(), true));
+        }
+        return true;
+    }
+
+    /**
+     * Fija el stock comprobando la versión, para que el cambio anotado sea el que se ha
+     * aplicado aunque otro cliente mueva el stock a la vez
+     * @return stock anterior, o null si el producto no existe o la cantidad no es válida
+     */
+    private static Integer setStock(ProductDAO dao, int id, int quantity) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            Product product = dao.getProductById(id);
+            if (product == null) {
+                return null;
+            }
+            int previous = product.getStock();
+            try {
+                product.setStock(quantity);
+                return dao.updateProduct(product) ? previous : null;
+            } catch (InvalidProductException e) {
+                return null;
+            } catch (StaleProductException e) {
+                if (attempt == SET_STOCK_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private int report(Options options) throws SQLException, UsageException {
+        options.singleArgument(null);
+        int topN = parseNonNegative(options.value("--top", "10"), "--top");
+        int deadDays = parseNonNegative(options.value("--dead-days", "90"), "--dead-days");
+        int threshold = parseInt(options.value("--threshold",
+            String.valueOf(InventoryStatistics.LOW_STOCK_THRESHOLD)), "--threshold");
+
+        ProductDAO dao = openDatabase();
+        InventoryReporter reporter = new InventoryReporter();
+        try {
+            InventoryReport report = reporter.generate(dao, new StockMovementDAO(),
+                Instant.now().minus(Duration.ofDays(deadDays)), topN, threshold);
+            out.print(report.format());
+        } finally {
+            reporter.shutdown();
+        }
+        return EXIT_OK;
+    }
+
+    private static ProductDAO openDatabase() throws SQLException {
+        DatabaseSchema.ensureSchema();
+        return new ProductDAO();
+    }
+
+    private static Reader openInput(String source) throws IOException {
+        if ("-".equals(source)) {
+            return new InputStreamReader(System.in, StandardCharsets.UTF_8);
+        }
+        Path path = Paths.get(source);
+        return Files.newBufferedReader(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Salida de {@code export -}: el PrintStream no lanza excepciones al escribir, así que se
+     * comprueba tras cada bloque y se corta la exportación si el lector ya no está (por ejemplo
+     * {@code export - | head})
+     */
+    private static final class CheckedOutput extends OutputStream {
+        private final PrintStream out;
+
+        CheckedOutput(PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            check();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            check();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+            check();
+        }
+
+        private void check() throws IOException {
+            if (out.checkError()) {
+                throw new IOException("no se pudo escribir en la salida estándar");
+            }
+        }
+    }
+
+    private static int parseInt(String value, String name) throws UsageException {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new UsageException("Valor no válido para " + name + ": " + value);
+        }
+    }
+
+    private static int parseNonNegative(String value, String name) throws UsageException {
+        int number = parseInt(value, name);
+        if (number < 0) {
+            throw new UsageException(name + " no puede ser negativo: " + value);
+        }
+        return number;
+    }
+
+    /**
+     * Orden mal escrita: se muestra el uso y se sale con {@link #EXIT_USAGE}
+     */
+    private static class UsageException extends Exception {
+        UsageException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Opciones {@code --nombre [valor]} y argumentos posicionales que siguen a la orden
+     */
+    private static class Options {
+        private final List<String> arguments = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+
+        Options(String[] args) throws UsageException {
+            for (int i = 1; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.startsWith("--")) {
+                    names.add(arg);
+                    if (isFlag(arg)) {
+                        values.add(null);
+                        continue;
+                    }
+                    if (i + 1 >= args.length || args[i + 1].startsWith("--")) {
+                        throw new UsageException("Falta el valor de " + arg);
+                    }
+                    values.add(args[++i]);
+                } else {
+                    arguments.add(arg);
+                }
+            }
+        }
+
+        private static boolean isFlag(String name) {
+            return "--gzip".equals(name) || "--set".equals(name);
+        }
+
+        boolean flag(String name) {
+            return names.contains(name);
+        }
+
+        String value(String name) {
+            int index = names.indexOf(name);
+            return index < 0 ? null : values.get(index);
+        }
+
+        String value(String name, String defaultValue) {
+            String value = value(name);
+            return value != null ? value : defaultValue;
+        }
+
+        List<String> arguments() {
+            return arguments;
+        }
+
+        /**
+         * El único argumento posicional, o {@code defaultValue} si no hay ninguno
+         */
+        String singleArgument(String defaultValue) throws UsageException {
+            if (arguments.size() > 1 || (defaultValue == null && !arguments.isEmpty())) {
+                throw new UsageException("Argumentos de más: " + arguments);
+            }
+            return arguments.isEmpty() ? defaultValue : arguments.get(0);
+        }
+    }
+
+    /**
+     * Lector de CSV (RFC 4180): campos entre comillas con comas, comillas dobladas y saltos de línea
+     */
+    private static class CsvReader implements AutoCloseable {
+        private final Reader reader;
+        private final StringBuilder field = new StringBuilder();
+        private int lineNumber;
+        private int nextLine = 1;
+        private int pushedBack = -2;
+
+        CsvReader(Reader reader) {
+            this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader, 64 * 1024);
+        }
+
+        /**
+         * Línea en la que empieza el último registro leído
+         */
+        int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Campos del siguiente registro, o {@code null} al final de la entrada
+         */
+        List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            lineNumber = nextLine;
+            List<String> fields = new ArrayList<>(6);
+            field.setLength(0);
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Línea " + lineNumber + ": comillas sin cerrar");
+                    }
+                    if (c == '"') {
+                        int following = read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = following;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            nextLine++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r' || c == -1) {
+                    if (c == '\r') {
+                        int following = read();
+                        if (following != '\n') {
+                            pushedBack = following;
+                        }
+                    }
+                    if (c != -1) {
+                        nextLine++;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (pushedBack != -2) {
+                int c = pushedBack;
+                pushedBack = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.store;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exporta el catálogo completo a CSV o JSON Lines, opcionalmente comprimido con gzip.
+ *
+ * Los productos se leen de uno en uno con {@link ProductRepository#forEachProduct} (cursor en
+ * el servidor con MySQL) y cada fila se escribe en un mismo {@link StringBuilder} que se
+ * codifica a UTF-8 sobre un buffer fijo y se vuelca al {@link FileChannel}; la memoria usada
+ * no depende del número de filas. Se escribe en un fichero temporal que sustituye al destino
+ * solo si la exportación termina bien.
+ */
+public class InventoryExporter {
+
+    public enum Format {
+        CSV("csv"),
+        JSON_LINES("jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Formato según la extensión del fichero (ignorando {@code .gz}); CSV si no se reconoce
+         */
+        public static Format forPath(Path path) {
+            String name = path.getFileName().toString().toLowerCase();
+            if (name.endsWith(".gz")) {
+                name = name.substring(0, name.length() - 3);
+            }
+            return name.endsWith(".jsonl") || name.endsWith(".json") ? JSON_LINES : CSV;
+        }
+    }
+
+    /** Filas entre dos avisos de progreso */
+    public static final int PROGRESS_INTERVAL = 10_000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ProductRepository source;
+
+    public InventoryExporter(ProductRepository source) {
+        this.source = source;
+    }
+
+    /**
+     * Exporta según la extensión del destino: {@code .csv} o {@code .jsonl}, y gzip si acaba en {@code .gz}
+     */
+    public long export(Path target, LongConsumer progress) throws SQLException, IOException {
+        return export(target, Format.forPath(target),
+            target.getFileName().toString().toLowerCase().endsWith(".gz"), progress);
+    }
+
+    /**
+     * Exporta todos los productos en orden de ID
+     *
+     * @param progress recibe el número de filas escritas cada {@link #PROGRESS_INTERVAL} filas y al
+     *                 terminar; puede ser {@code null}
+     * @return número de productos exportados
+     */
+    public long export(Path target, Format format, boolean gzip, LongConsumer progress)
+            throws SQLException, IOException {
+        Path absolute = target.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".part");
+        long rows;
+        try (FileChannel file = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream gzipStream = gzip
+                ? new GZIPOutputStream(Channels.newOutputStream(file), BUFFER_SIZE) : null;
+            RowWriter writer = new RowWriter(gzipStream != null ? Channels.newChannel(gzipStream) : file);
+            rows = writeRows(writer, format, progress);
+            writer.flush();
+            if (gzipStream != null) {
+                gzipStream.close();
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return rows;
+    }
+
+    /**
+     * Exporta todos los productos en orden de ID a un flujo abierto (por ejemplo la salida
+     * estándar), sin cerrarlo
+     * @return número de productos exportados
+     */
+    public long export(OutputStream out, Format format, LongConsumer progress) throws SQLException, IOException {
+        RowWriter writer = new RowWriter(Channels.newChannel(out));
+        long rows = writeRows(writer, format, progress);
+        writer.flush();
+        out.flush();
+        return rows;
+    }
+
+    private long writeRows(RowWriter writer, Format format, LongConsumer progress)
+            throws SQLException, IOException {
+        StringBuilder line = writer.line;
+        if (format == Format.CSV) {
+            line.append("id,name,price,stock,category,description\n");
+            writer.writeLine();
+        }
+        long[] rows = new long[1];
+        try {
+            source.forEachProduct(product -> {
+                if (format == Format.CSV) {
+                    appendCsv(line, product);
+                } else {
+                    appendJson(line, product);
+                    line.append('\n');
+                }
+                try {
+                    writer.writeLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (++rows[0] % PROGRESS_INTERVAL == 0 && progress != null) {
+                    progress.accept(rows[0]);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (progress != null) {
+            progress.accept(rows[0]);
+        }
+        return rows[0];
+    }
+
+    private static void appendCsv(StringBuilder line, Product product) {
+        line.append(product.getId()).append(',');
+        appendCsvField(line, product.getName());
+        line.append(',');
+        appendPrice(line, product.getPrice());
+        line.append(',').append(product.getStock()).append(',');
+        appendCsvField(line, product.getCategory());
+        line.append(',');
+        appendCsvField(line, product.getDescription());
+        line.append('\n');
+    }
+
+    /**
+     * Producto como objeto JSON, sin salto de línea (también lo usa {@link InventoryServer})
+     */
+    static void appendJson(StringBuilder line, Product product) {
+        line.append("{\"id\":").append(product.getId()).append(",\"name\":");
+        appendJsonString(line, product.getName());
+        line.append(",\"price\":");
+        appendPrice(line, product.getPrice());
+        line.append(",\"stock\":").append(product.getStock()).append(",\"category\":");
+        appendJsonString(line, product.getCategory());
+        line.append(",\"description\":");
+        appendJsonString(line, product.getDescription());
+        line.append('}');
+    }
+
+    /**
+     * Precio con dos decimales y sin notación científica (la columna es DECIMAL(10,2))
+     */
+    private static void appendPrice(StringBuilder line, double price) {
+        long cents = Math.round(price * 100);
+        line.append(cents / 100).append('.');
+        long fraction = cents % 100;
+        if (fraction < 10) {
+            line.append('0');
+        }
+        line.append(fraction);
+    }
+
+    /**
+     * Campo CSV (RFC 4180): entre comillas solo si contiene separadores, comillas o saltos de línea
+     */
+    private static void appendCsvField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    static void appendJsonString(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Codifica cada línea a UTF-8 en un buffer fijo y lo vuelca al canal cuando se llena
+     */
+    private static final class RowWriter {
+        final StringBuilder line = new StringBuilder(512);
+        private final WritableByteChannel channel;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private CharBuffer chars = CharBuffer.allocate(512);
+
+        RowWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void writeLine() throws IOException {
+            if (chars.capacity() < line.length()) {
+                chars = CharBuffer.allocate(line.length() * 2);
+            }
+            chars.clear();
+            chars.append(line);
+            chars.flip();
+            line.setLength(0);
+            while (true) {
+                CoderResult result = encoder.encode(chars, bytes, false);
+                if (result.isOverflow()) {
+                    drain();
+                } else if (result.isError()) {
+                    result.throwException();
+                } else {
+                    break;
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.store;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Informe de inventario generado por {@link InventoryReporter}: valoración por categoría,
+ * distribución del stock, productos de mayor valor y stock sin movimiento.
+ */
+public final class InventoryReport {
+
+    /**
+     * Una línea de producto del informe
+     */
+    public static final class Line {
+        private final int id;
+        private final String name;
+        private final String category;
+        private final double price;
+        private final int stock;
+
+        Line(int id, String name, String category, double price, int stock) {
+            this.id = id;
+            this.name = name;
+            this.category = category;
+            this.price = price;
+            this.stock = stock;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public int getStock() {
+            return stock;
+        }
+
+        public double getValue() {
+            return price * stock;
+        }
+    }
+
+    /** Percentiles de stock que incluye el informe */
+    public static final double[] PERCENTILES = {10, 25, 50, 75, 90, 99};
+
+    private final Instant generatedAt;
+    private final InventoryStats totals;
+    private final Map<String, InventoryStats> byCategory;
+    private final int minStock;
+    private final int maxStock;
+    private final int[] stockPercentiles;
+    private final List<Line> topByValue;
+    private final Instant deadStockSince;
+    private final int deadStockCount;
+    private final List<Line> deadStock;
+
+    InventoryReport(Instant generatedAt, InventoryStats totals, Map<String, InventoryStats> byCategory,
+                    int minStock, int maxStock, int[] stockPercentiles, List<Line> topByValue,
+                    Instant deadStockSince, int deadStockCount, List<Line> deadStock) {
+        this.generatedAt = generatedAt;
+        this.totals = totals;
+        this.byCategory = Collections.unmodifiableMap(byCategory);
+        this.minStock = minStock;
+        this.maxStock = maxStock;
+        this.stockPercentiles = stockPercentiles;
+        this.topByValue = Collections.unmodifiableList(topByValue);
+        this.deadStockSince = deadStockSince;
+        this.deadStockCount = deadStockCount;
+        this.deadStock = Collections.unmodifiableList(deadStock);
+    }
+
+    public Instant getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public InventoryStats getTotals() {
+        return totals;
+    }
+
+    /**
+     * Número de productos, stock bajo y valor de cada categoría, ordenadas por nombre
+     */
+    public Map<String, InventoryStats> getByCategory() {
+        return byCategory;
+    }
+
+    public int getMinStock() {
+        return minStock;
+    }
+
+    public int getMaxStock() {
+        return maxStock;
+    }
+
+    /**
+     * Stock en el percentil {@code PERCENTILES[index]} (rango más cercano)
+     */
+    public int getStockPercentile(int index) {
+        return stockPercentiles[index];
+    }
+
+    /**
+     * Productos de mayor valor (precio por stock), de mayor a menor; a igual valor, por ID
+     */
+    public List<Line> getTopByValue() {
+        return topByValue;
+    }
+
+    /**
+     * Fecha desde la que se busca stock sin movimiento, o {@code null} si no se calculó
+     */
+    public Instant getDeadStockSince() {
+        return deadStockSince;
+    }
+
+    /**
+     * Número de productos con stock y sin movimientos ni cambios desde {@link #getDeadStockSince()}
+     */
+    public int getDeadStockCount() {
+        return deadStockCount;
+    }
+
+    /**
+     * Los de más valor entre esos productos (como mucho tantos como {@link #getTopByValue()}),
+     * de mayor a menor
+     */
+    public List<Line> getDeadStock() {
+        return deadStock;
+    }
+
+    /**
+     * El informe como texto, para mostrarlo o guardarlo
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("INFORME DE INVENTARIO - ").append(generatedAt).append("\n\n");
+        sb.append(String.format(Locale.ROOT, "Productos: %d | Stock bajo: %d | Valor total: %.2f€%n%n",
+            totals.getProductCount(), totals.getLowStockCount(), totals.getTotalValue()));
+
+        sb.append("VALORACIÓN POR CATEGORÍA\n");
+        for (Map.Entry<String, InventoryStats> entry : byCategory.entrySet()) {
+            InventoryStats stats = entry.getValue();
+            sb.append(String.format(Locale.ROOT, "  %-20s %8d productos %8d stock bajo %14.2f%n",
+                entry.getKey(), stats.getProductCount(), stats.getLowStockCount(), stats.getTotalValue()));
+        }
+
+        sb.append("\nDISTRIBUCIÓN DEL STOCK\n");
+        sb.append("  mín ").append(minStock);
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            sb.append(String.format(Locale.ROOT, " | p%.0f %d", PERCENTILES[i], stockPercentiles[i]));
+        }
+        sb.append(" | máx ").append(maxStock).append("\n");
+
+        sb.append("\nMAYOR VALOR\n");
+        appendLines(sb, topByValue);
+
+        if (deadStockSince != null) {
+            sb.append("\nSIN MOVIMIENTOS DESDE ").append(deadStockSince)
+              .append(" (").append(deadStockCount);
+            if (deadStock.size() < deadStockCount) {
+                sb.append("; los ").append(deadStock.size()).append(" de más valor");
+            }
+            sb.append(")\n");
+            appendLines(sb, deadStock);
+        }
+        return sb.toString();
+    }
+
+    private static void appendLines(StringBuilder sb, List<Line> lines) {
+        for (Line line : lines) {
+            sb.append(String.format(Locale.ROOT, "  #%-8d %-30s %-15s %6d x %10.2f = %14.2f%n",
+                line.getId(), line.getName(), line.getCategory(), line.getStock(), line.getPrice(), line.getValue()));
+        }
+    }
+}
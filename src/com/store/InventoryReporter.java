@@ -0,0 +1,294 @@
+package com.store;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Genera {@link InventoryReport} en paralelo sobre un {@link ForkJoinPool}.
+ *
+ * El catálogo se toma de una {@link ProductColumns}; cada tarea hoja recorre un tramo de
+ * filas y devuelve agregados parciales (por categoría, stock ordenado, los N de más valor y
+ * los N de más valor entre el stock parado) que se combinan de dos en dos al volver. Los tramos tienen un
+ * tamaño fijo, así que el árbol de combinaciones, y con él el orden de las sumas en coma
+ * flotante, no depende del número de núcleos: el mismo catálogo da siempre el mismo informe.
+ */
+public class InventoryReporter {
+
+    /** Filas que recorre cada tarea hoja */
+    static final int CHUNK_ROWS = 16_384;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Usa un hilo por núcleo disponible
+     */
+    public InventoryReporter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public InventoryReporter(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("inventory-report-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+    }
+
+    /**
+     * Carga una instantánea del catálogo y genera el informe.
+     *
+     * @param movements diario de movimientos para el stock parado, o {@code null} para omitirlo
+     * @param deadStockSince productos con stock sin movimientos ni cambios desde esta fecha
+     * @param topN líneas de mayor valor, y también máximo de líneas de stock parado
+     */
+    public InventoryReport generate(ProductRepository source, StockMovementDAO movements, Instant deadStockSince,
+                                    int topN, int lowStockThreshold) throws SQLException {
+        ProductColumns columns = ProductColumns.load(source);
+        long[] lastActivity = movements != null ? loadLastActivity(columns, movements) : null;
+        return generate(columns, lastActivity, movements != null ? deadStockSince : null, topN, lowStockThreshold);
+    }
+
+    /**
+     * Genera el informe sobre una instantánea ya cargada.
+     *
+     * @param lastActivityMillis fecha de la última actividad de cada fila (movimiento o cambio del
+     *                           producto), o {@code null} para omitir el stock parado
+     */
+    public InventoryReport generate(ProductColumns columns, long[] lastActivityMillis, Instant deadStockSince,
+                                    int topN, int lowStockThreshold) throws SQLException {
+        long deadBefore = lastActivityMillis != null && deadStockSince != null
+            ? deadStockSince.toEpochMilli() : Long.MIN_VALUE;
+        Partial result = pool.invoke(new ChunkTask(columns, lastActivityMillis, deadBefore, topN,
+            lowStockThreshold, 0, columns.size()));
+
+        Map<String, InventoryStats> byCategory = new TreeMap<>();
+        InventoryStats totals = InventoryStats.EMPTY;
+        for (int code = 0; code < columns.getCategoryCount(); code++) {
+            if (result.counts[code] == 0) {
+                continue;
+            }
+            InventoryStats stats = new InventoryStats(result.counts[code], result.lowStock[code], result.values[code]);
+            byCategory.put(columns.getCategoryName(code), stats);
+            totals = totals.plus(stats);
+        }
+
+        int[] stock = result.sortedStock;
+        int[] percentiles = new int[InventoryReport.PERCENTILES.length];
+        for (int i = 0; i < percentiles.length && stock.length > 0; i++) {
+            int rank = (int) Math.ceil(InventoryReport.PERCENTILES[i] / 100.0 * stock.length);
+            percentiles[i] = stock[Math.max(0, Math.min(stock.length, rank) - 1)];
+        }
+
+        return new InventoryReport(Instant.now(), totals, byCategory,
+            stock.length > 0 ? stock[0] : 0, stock.length > 0 ? stock[stock.length - 1] : 0, percentiles,
+            lines(columns, result.top, result.topSize),
+            deadBefore != Long.MIN_VALUE ? deadStockSince : null,
+            result.deadCount, lines(columns, result.dead, result.deadSize));
+    }
+
+    /**
+     * Fecha de la última actividad de cada fila de la instantánea, alineada con sus filas.
+     * Las filas que ya no están en la base de datos quedan con {@code Long.MAX_VALUE}: no
+     * se pueden dar por paradas.
+     */
+    public static long[] loadLastActivity(ProductColumns columns, StockMovementDAO movements) throws SQLException {
+        long[] lastActivity = new long[columns.size()];
+        Arrays.fill(lastActivity, Long.MAX_VALUE);
+        movements.forEachLastActivity((productId, epochMillis) -> {
+            int row = columns.rowOf(productId);
+            if (row >= 0) {
+                lastActivity[row] = epochMillis;
+            }
+        });
+        return lastActivity;
+    }
+
+    /**
+     * Termina los hilos del pool; las llamadas en curso acaban antes
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Líneas de las filas indicadas; solo se leen los nombres de esas filas, no los de todo el catálogo
+     */
+    private static List<InventoryReport.Line> lines(ProductColumns columns, int[] rows, int count) throws SQLException {
+        List<InventoryReport.Line> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            String name = columns.getName(row);
+            if (name == null) {
+                // Eliminado después de la instantánea
+                continue;
+            }
+            lines.add(new InventoryReport.Line(columns.getId(row), name, columns.getCategory(row),
+                columns.getPrice(row), columns.getStock(row)));
+        }
+        return lines;
+    }
+
+    /**
+     * Agregados de un tramo de filas
+     */
+    private static final class Partial {
+        final int[] counts;
+        final long[] lowStock;
+        final double[] values;
+        int[] sortedStock;
+        int[] top;
+        int topSize;
+        // Los N de más valor del stock parado, y cuántas filas paradas hay en total
+        int[] dead;
+        int deadSize;
+        int deadCount;
+
+        Partial(int categories, int topN) {
+            counts = new int[categories];
+            lowStock = new long[categories];
+            values = new double[categories];
+            top = new int[topN];
+            dead = new int[topN];
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveTask<Partial> {
+        private final ProductColumns columns;
+        private final long[] lastActivity;
+        private final long deadBefore;
+        private final int topN;
+        private final int lowStockThreshold;
+        private final int from;
+        private final int to;
+
+        ChunkTask(ProductColumns columns, long[] lastActivity, long deadBefore, int topN,
+                  int lowStockThreshold, int from, int to) {
+            this.columns = columns;
+            this.lastActivity = lastActivity;
+            this.deadBefore = deadBefore;
+            this.topN = topN;
+            this.lowStockThreshold = lowStockThreshold;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= CHUNK_ROWS) {
+                return scan();
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(columns, lastActivity, deadBefore, topN, lowStockThreshold, from, mid);
+            ChunkTask right = new ChunkTask(columns, lastActivity, deadBefore, topN, lowStockThreshold, mid, to);
+            left.fork();
+            Partial rightResult = right.compute();
+            return merge(left.join(), rightResult);
+        }
+
+        private Partial scan() {
+            Partial partial = new Partial(columns.getCategoryCount(), topN);
+            int[] stock = new int[to - from];
+            for (int row = from; row < to; row++) {
+                int code = columns.getCategoryCode(row);
+                int rowStock = columns.getStock(row);
+                partial.counts[code]++;
+                if (rowStock < lowStockThreshold) {
+                    partial.lowStock[code]++;
+                }
+                partial.values[code] += columns.getPrice(row) * rowStock;
+                stock[row - from] = rowStock;
+                partial.topSize = offer(partial.top, partial.topSize, row);
+                if (lastActivity != null && rowStock > 0 && lastActivity[row] < deadBefore) {
+                    partial.deadCount++;
+                    partial.deadSize = offer(partial.dead, partial.deadSize, row);
+                }
+            }
+            Arrays.sort(stock);
+            partial.sortedStock = stock;
+            return partial;
+        }
+
+        /**
+         * Inserta la fila entre las N de más valor si le corresponde, manteniendo el orden
+         * @return número de filas en {@code ranked} después de insertar
+         */
+        private int offer(int[] ranked, int size, int row) {
+            if (topN == 0 || (size == topN && !ranksBefore(row, ranked[size - 1]))) {
+                return size;
+            }
+            int pos = Math.min(size, topN - 1);
+            while (pos > 0 && ranksBefore(row, ranked[pos - 1])) {
+                ranked[pos] = ranked[pos - 1];
+                pos--;
+            }
+            ranked[pos] = row;
+            return Math.min(size + 1, topN);
+        }
+
+        private boolean ranksBefore(int row, int other) {
+            double value = columns.getPrice(row) * columns.getStock(row);
+            double otherValue = columns.getPrice(other) * columns.getStock(other);
+            return value > otherValue || (value == otherValue && columns.getId(row) < columns.getId(other));
+        }
+
+        private Partial merge(Partial left, Partial right) {
+            for (int code = 0; code < left.counts.length; code++) {
+                left.counts[code] += right.counts[code];
+                left.lowStock[code] += right.lowStock[code];
+                left.values[code] += right.values[code];
+            }
+            left.sortedStock = mergeSorted(left.sortedStock, right.sortedStock);
+
+            left.top = mergeRanked(left.top, left.topSize, right.top, right.topSize);
+            left.topSize = left.top.length;
+            left.dead = mergeRanked(left.dead, left.deadSize, right.dead, right.deadSize);
+            left.deadSize = left.dead.length;
+            left.deadCount += right.deadCount;
+            return left;
+        }
+
+        /**
+         * Las N de más valor de dos listas ya ordenadas
+         */
+        private int[] mergeRanked(int[] left, int leftSize, int[] right, int rightSize) {
+            int[] merged = new int[Math.min(topN, leftSize + rightSize)];
+            int i = 0;
+            int j = 0;
+            int size = 0;
+            while (size < merged.length) {
+                if (j >= rightSize || (i < leftSize && ranksBefore(left[i], right[j]))) {
+                    merged[size++] = left[i++];
+                } else {
+                    merged[size++] = right[j++];
+                }
+            }
+            return merged;
+        }
+
+        private static int[] mergeSorted(int[] a, int[] b) {
+            int[] merged = new int[a.length + b.length];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < a.length && j < b.length) {
+                merged[k++] = a[i] <= b[j] ? a[i++] : b[j++];
+            }
+            while (i < a.length) {
+                merged[k++] = a[i++];
+            }
+            while (j < b.length) {
+                merged[k++] = b[j++];
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,638 @@
+package com.store;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servidor HTTP embebido con una API JSON del inventario, sin interfaz gráfica.
+ *
+ * Usa el servidor HTTP del JDK ({@code com.sun.net.httpserver}) y un hilo por petición: hilos
+ * virtuales si la JVM los tiene (Java 21 o posterior) y si no hilos de plataforma. Con MySQL
+ * trabaja sobre el mismo {@link MeteredProductDAO} que la aplicación, con el diario de
+ * movimientos y el seguimiento de cambios de otros clientes; si la base de datos no responde,
+ * sobre el almacén local ({@link MappedProductStore}), sin ningún servicio externo.
+ * <pre>
+ *   GET  /api/products/{id}
+ *   GET  /api/products?after=&amp;limit=&amp;category=&amp;minStock=&amp;maxStock=&amp;minPrice=&amp;maxPrice=
+ *   GET  /api/products/search?q=&amp;limit=
+ *   POST /api/products/{id}/stock      {"delta": -3}
+ *   GET  /api/metrics
+ * </pre>
+ * El listado pagina por clave: la respuesta trae {@code nextAfter}, que se pasa como
+ * {@code after} para pedir la página siguiente ({@code null} en la última).
+ *
+ * Las peticiones que usan la base de datos se limitan al tamaño del pool de conexiones: si no
+ * queda sitio en {@link #DEFAULT_QUEUE_MILLIS} ms, o el pool agota su espera, se responde 503
+ * con {@code Retry-After} en lugar de acumular hilos esperando una conexión. Cada ruta registra
+ * su latencia en {@link StoreMetrics} como {@code http.<ruta>}.
+ *
+ * Propiedades: {@code store.http.host} (por defecto {@code localhost}), {@code store.http.port}
+ * (8080, o el primer argumento), {@code store.http.maxConcurrent} y {@code store.http.queueMillis}.
+ */
+public class InventoryServer implements AutoCloseable {
+
+    static final int DEFAULT_PORT = 8080;
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+
+    /** Espera máxima por un hueco antes de responder 503 */
+    static final long DEFAULT_QUEUE_MILLIS = 100;
+
+    /** Peticiones simultáneas sin base de datos (almacén local) */
+    private static final int DEFAULT_LOCAL_CONCURRENCY = 64;
+
+    /** Cambio de stock máximo, en valor absoluto, en una petición */
+    static final int MAX_STOCK_DELTA = 1_000_000;
+
+    private static final int MAX_BODY_BYTES = 4096;
+    /** SQLState de un valor numérico fuera del rango de la columna */
+    private static final String OUT_OF_RANGE = "22003";
+    /** Solo enteros: un decimal o un exponente ({@code -2.9}, {@code 1e3}) no encaja y se rechaza */
+    private static final Pattern DELTA = Pattern.compile("\"delta\"\\s*:\\s*(-?\\d+)\\s*[,}]");
+
+    private static final OperationMetrics GET_PRODUCT = StoreMetrics.operation("http.getProduct");
+    private static final OperationMetrics LIST_PRODUCTS = StoreMetrics.operation("http.listProducts");
+    private static final OperationMetrics SEARCH_PRODUCTS = StoreMetrics.operation("http.searchProducts");
+    private static final OperationMetrics ADJUST_STOCK = StoreMetrics.operation("http.adjustStock");
+
+    private final ProductRepository repository;
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long queueMillis;
+    private final AtomicLong rejected = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private boolean virtualThreads;
+
+    /**
+     * @param maxConcurrent peticiones que pueden usar el repositorio a la vez
+     * @param queueMillis espera máxima por un hueco antes de responder 503
+     */
+    public InventoryServer(ProductRepository repository, int maxConcurrent, long queueMillis) {
+        this.repository = repository;
+        this.maxConcurrent = maxConcurrent;
+        this.queueMillis = queueMillis;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    public static void main(String[] args) {
+        int port = Integer.getInteger("store.http.port", DEFAULT_PORT);
+        if (args.length > 0) {
+            try {
+                port = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                System.err.println("Puerto no válido: " + args[0]);
+                System.exit(InventoryCli.EXIT_USAGE);
+            }
+        }
+        String host = System.getProperty("store.http.host", "localhost");
+        long queueMillis = Long.getLong("store.http.queueMillis", DEFAULT_QUEUE_MILLIS);
+
+        List<AutoCloseable> resources = new ArrayList<>();
+        try {
+            ProductRepository repository;
+            int concurrency;
+            if (DatabaseConnection.testConnection()) {
+                DatabaseSchema.ensureSchema();
+                CategoryDictionary.load();
+                MeteredProductDAO dao = new MeteredProductDAO();
+                repository = dao;
+                concurrency = DatabaseConnection.getPool().getMaxSize();
+                StockLedger ledger = startStockLedger(dao);
+                resources.add(ledger::close);
+                ProductChangeFeed feed = startChangeFeed(dao);
+                if (feed != null) {
+                    resources.add(feed);
+                }
+                StoreMetrics.registerMBeans();
+            } else {
+                Path localPath = Paths.get(System.getProperty("store.local.path", "inventario-local.dat"));
+                MappedProductStore localStore = new MappedProductStore(localPath, true);
+                for (String category : CategoryDictionary.DEFAULT_CATEGORIES) {
+                    CategoryDictionary.internLocal(category);
+                }
+                repository = localStore;
+                concurrency = DEFAULT_LOCAL_CONCURRENCY;
+                // El pool solo se ha creado para comprobar la conexión: se cierra con su hilo de limpieza
+                DatabaseConnection.shutdown();
+                resources.add(localStore);
+                System.err.println("No se pudo conectar a la base de datos; se usa el almacén local "
+                    + localPath.toAbsolutePath());
+            }
+            StoreMetrics.startDump(Long.getLong("store.metrics.dumpIntervalSec", 0L));
+
+            InventoryServer inventoryServer = new InventoryServer(repository,
+                Integer.getInteger("store.http.maxConcurrent", concurrency), queueMillis);
+            resources.add(0, inventoryServer);
+            inventoryServer.start(new InetSocketAddress(host, port));
+            System.err.printf("Servidor de inventario en http://%s:%d/api/ (%s, %d peticiones simultáneas)%n",
+                host, inventoryServer.getPort(),
+                inventoryServer.usesVirtualThreads() ? "hilos virtuales" : "hilos de plataforma",
+                inventoryServer.maxConcurrent);
+            // Con el pool todavía abierto, para que el diario de movimientos vacíe su búfer
+            DatabaseConnection.closeAtExit(() -> closeAll(resources));
+        } catch (SQLException | IOException e) {
+            System.err.println("No se pudo iniciar el servidor: " + e.getMessage());
+            closeAll(resources);
+            DatabaseConnection.shutdown();
+            System.exit(InventoryCli.EXIT_FAILED);
+        }
+    }
+
+    /**
+     * Empieza a atender peticiones; el índice de búsqueda se construye en segundo plano
+     */
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        repository.addChangeListener(searchIndex);
+        executor = newRequestExecutor();
+        server = HttpServer.create(address, 0);
+        server.createContext("/api/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        executor.execute(() -> {
+            try {
+                searchIndex.load(repository);
+            } catch (SQLException e) {
+                System.err.println("No se pudo construir el índice de búsqueda: " + e.getMessage());
+            }
+        });
+    }
+
+    public synchronized int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public synchronized boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Deja de aceptar peticiones y espera como mucho un segundo a las que están en curso
+     */
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        server.stop(1);
+        executor.shutdown();
+        repository.removeChangeListener(searchIndex);
+        server = null;
+    }
+
+    /**
+     * Un hilo virtual por petición si la JVM los tiene; si no, hilos de plataforma que se crean
+     * y reutilizan según haga falta
+     */
+    private ExecutorService newRequestExecutor() {
+        try {
+            // Se busca por reflexión para seguir compilando con release 17
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            virtualThreads = true;
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            virtualThreads = false;
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "inventory-http-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getRawPath().substring("/api/".length()).split("/");
+            String method = exchange.getRequestMethod();
+            if (path.length == 1 && "metrics".equals(path[0])) {
+                requireMethod(method, "GET");
+                sendMetrics(exchange);
+                return;
+            }
+            if (!"products".equals(path[0]) || path.length > 3) {
+                throw new HttpError(404, "Ruta desconocida: " + exchange.getRequestURI().getPath());
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (path.length == 1) {
+                requireMethod(method, "GET");
+                timed(exchange, LIST_PRODUCTS, true, () -> listProducts(query));
+            } else if (path.length == 2 && "search".equals(path[1])) {
+                requireMethod(method, "GET");
+                timed(exchange, SEARCH_PRODUCTS, false, () -> searchProducts(query));
+            } else if (path.length == 2) {
+                requireMethod(method, "GET");
+                int id = parseId(path[1]);
+                timed(exchange, GET_PRODUCT, true, () -> getProduct(id));
+            } else if ("stock".equals(path[2])) {
+                requireMethod(method, "POST");
+                int id = parseId(path[1]);
+                int delta = parseDelta(exchange.getRequestBody());
+                timed(exchange, ADJUST_STOCK, true, () -> adjustStock(id, delta));
+            } else {
+                throw new HttpError(404, "Ruta desconocida: " + exchange.getRequestURI().getPath());
+            }
+        } catch (HttpError e) {
+            sendError(exchange, e);
+        } catch (RuntimeException e) {
+            System.err.println("Error al atender " + exchange.getRequestURI() + ": " + e);
+            sendError(exchange, new HttpError(500, "Error interno del servidor"));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Ejecuta una ruta registrando su latencia; las que usan el repositorio esperan hueco
+     * como mucho {@link #queueMillis} ms
+     */
+    private void timed(HttpExchange exchange, OperationMetrics metrics, boolean usesRepository, Route route)
+            throws IOException, HttpError {
+        long start = System.nanoTime();
+        boolean acquired = false;
+        try {
+            if (usesRepository) {
+                acquired = permits.tryAcquire(queueMillis, TimeUnit.MILLISECONDS);
+                if (!acquired) {
+                    rejected.incrementAndGet();
+                    throw new HttpError(503, "Servidor ocupado, inténtelo de nuevo");
+                }
+            }
+            Response response = route.handle();
+            send(exchange, response.status, response.body);
+            metrics.success(start, response.rows);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            metrics.failure(start);
+            throw new HttpError(503, "Servidor deteniéndose");
+        } catch (SQLTimeoutException e) {
+            // Otros clientes tienen ocupado el pool: igual que si no hubiera hueco
+            rejected.incrementAndGet();
+            metrics.failure(start);
+            throw new HttpError(503, "Base de datos ocupada, inténtelo de nuevo");
+        } catch (SQLException e) {
+            if (OUT_OF_RANGE.equals(e.getSQLState())) {
+                // El stock resultante no cabe en la columna
+                metrics.success(start, 0);
+                throw new HttpError(409, "El stock resultante está fuera de rango");
+            }
+            metrics.failure(start);
+            System.err.println("Error de base de datos en " + exchange.getRequestURI() + ": " + e.getMessage());
+            throw new HttpError(500, "Error de base de datos");
+        } catch (HttpError e) {
+            // Los errores del cliente (404, 409...) son respuestas normales de la ruta
+            if (e.status >= 500) {
+                metrics.failure(start);
+            } else {
+                metrics.success(start, 0);
+            }
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            metrics.failure(start);
+            throw e;
+        } finally {
+            if (acquired) {
+                permits.release();
+            }
+        }
+    }
+
+    private Response getProduct(int id) throws SQLException, HttpError {
+        Product product = repository.getProductById(id);
+        if (product == null) {
+            throw new HttpError(404, "No existe el producto con ID: " + id);
+        }
+        StringBuilder body = new StringBuilder(256);
+        InventoryExporter.appendJson(body, product);
+        return new Response(200, body, 1);
+    }
+
+    /**
+     * Página del listado; se pide una fila de más para saber si hay página siguiente
+     */
+    private Response listProducts(Map<String, String> query) throws SQLException, HttpError {
+        int limit = parseLimit(query);
+        ProductFilter filter = new ProductFilter()
+            .setAfterId(parseInt(query, "after", 0))
+            .setLimit(limit + 1)
+            .setMinStock(parseInteger(query, "minStock"))
+            .setMaxStock(parseInteger(query, "maxStock"))
+            .setMinPrice(parseDouble(query, "minPrice"))
+            .setMaxPrice(parseDouble(query, "maxPrice"));
+        String category = query.get("category");
+        if (category != null && !category.isEmpty()) {
+            filter.setCategory(category);
+        }
+        List<Product> page = repository.findByFilter(filter);
+        boolean more = page.size() > limit;
+        if (more) {
+            page = page.subList(0, limit);
+        }
+
+        StringBuilder body = new StringBuilder(64 + page.size() * 160);
+        appendItems(body, page);
+        body.append(",\"nextAfter\":");
+        if (more) {
+            body.append(page.get(page.size() - 1).getId());
+        } else {
+            body.append("null");
+        }
+        body.append('}');
+        return new Response(200, body, page.size());
+    }
+
+    private Response searchProducts(Map<String, String> query) throws HttpError {
+        String text = query.get("q");
+        if (text == null || text.trim().isEmpty()) {
+            throw new HttpError(400, "Falta el texto de búsqueda (q)");
+        }
+        if (!searchIndex.isReady()) {
+            throw new HttpError(503, "El índice de búsqueda se está construyendo");
+        }
+        List<Product> results = searchIndex.search(text);
+        int limit = parseLimit(query);
+        if (results.size() > limit) {
+            results = results.subList(0, limit);
+        }
+        StringBuilder body = new StringBuilder(64 + results.size() * 160);
+        appendItems(body, results);
+        body.append('}');
+        return new Response(200, body, results.size());
+    }
+
+    /**
+     * Suma {@code delta} al stock en una sola operación atómica; 409 si quedaría negativo
+     */
+    private Response adjustStock(int id, int delta) throws SQLException, HttpError {
+        if (!repository.tryAdjustStock(id, delta)) {
+            Product product = repository.getProductById(id);
+            if (product == null) {
+                throw new HttpError(404, "No existe el producto con ID: " + id);
+            }
+            throw new HttpError(409, String.format(
+                "La operación resultaría en stock negativo. Stock actual: %d, Cantidad: %d",
+                product.getStock(), delta));
+        }
+        Product product = repository.getProductById(id);
+        StringBuilder body = new StringBuilder(64);
+        body.append("{\"id\":").append(id).append(",\"stock\":");
+        if (product == null) {
+            // Borrado justo después del ajuste
+            body.append("null");
+        } else {
+            body.append(product.getStock());
+        }
+        body.append('}');
+        return new Response(200, body, 1);
+    }
+
+    private void sendMetrics(HttpExchange exchange) throws IOException {
+        StringBuilder body = new StringBuilder(1024);
+        body.append("{\"http\":{\"maxConcurrent\":").append(maxConcurrent)
+            .append(",\"inFlight\":").append(maxConcurrent - permits.availablePermits())
+            .append(",\"rejected\":").append(rejected.get())
+            .append(",\"virtualThreads\":").append(virtualThreads).append('}');
+        ConnectionPool pool = DatabaseConnection.currentPool();
+        if (repository instanceof ProductDAO && pool != null) {
+            body.append(",\"pool\":{\"active\":").append(pool.getActiveCount())
+                .append(",\"idle\":").append(pool.getIdleCount())
+                .append(",\"total\":").append(pool.getTotalCount())
+                .append(",\"max\":").append(pool.getMaxSize()).append('}');
+        }
+        body.append(",\"operations\":[");
+        boolean first = true;
+        for (OperationMetrics metrics : StoreMetrics.operations()) {
+            if (metrics.getCalls() == 0) {
+                continue;
+            }
+            if (!first) {
+                body.append(',');
+            }
+            first = false;
+            body.append("{\"name\":");
+            InventoryExporter.appendJsonString(body, metrics.getName());
+            body.append(",\"calls\":").append(metrics.getCalls())
+                .append(",\"errors\":").append(metrics.getErrors())
+                .append(",\"rows\":").append(metrics.getRows())
+                .append(String.format(Locale.ROOT,
+                    ",\"meanMicros\":%.1f,\"p50Micros\":%.1f,\"p99Micros\":%.1f,\"p999Micros\":%.1f,\"maxMicros\":%.1f}",
+                    metrics.getMeanMicros(), metrics.getP50Micros(), metrics.getP99Micros(),
+                    metrics.getP999Micros(), metrics.getMaxMicros()));
+        }
+        body.append("]}");
+        send(exchange, 200, body);
+    }
+
+    private static void appendItems(StringBuilder body, List<Product> products) {
+        body.append("{\"items\":[");
+        for (int i = 0; i < products.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            InventoryExporter.appendJson(body, products.get(i));
+        }
+        body.append(']');
+    }
+
+    private static void sendError(HttpExchange exchange, HttpError error) throws IOException {
+        if (error.status == 503) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+        } else if (error.status == 405) {
+            exchange.getResponseHeaders().set("Allow", error.allowed);
+        }
+        StringBuilder body = new StringBuilder("{\"error\":");
+        InventoryExporter.appendJsonString(body, error.getMessage());
+        body.append('}');
+        send(exchange, error.status, body);
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void requireMethod(String method, String expected) throws HttpError {
+        if (!expected.equals(method)) {
+            HttpError error = new HttpError(405, "Método no permitido: " + method);
+            error.allowed = expected;
+            throw error;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static int parseDelta(InputStream in) throws IOException, HttpError {
+        byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new HttpError(413, "Cuerpo de la petición demasiado grande");
+        }
+        Matcher matcher = DELTA.matcher(new String(bytes, StandardCharsets.UTF_8));
+        if (!matcher.find()) {
+            throw new HttpError(400, "Se esperaba un cuerpo {\"delta\": cantidad}");
+        }
+        int delta;
+        try {
+            delta = Integer.parseInt(matcher.group(1));
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Cantidad no válida: " + matcher.group(1));
+        }
+        if (delta < -MAX_STOCK_DELTA || delta > MAX_STOCK_DELTA) {
+            throw new HttpError(400, "La cantidad debe estar entre -" + MAX_STOCK_DELTA + " y " + MAX_STOCK_DELTA);
+        }
+        return delta;
+    }
+
+    private static int parseId(String value) throws HttpError {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "ID no válido: " + value);
+        }
+    }
+
+    private static int parseLimit(Map<String, String> query) throws HttpError {
+        int limit = parseInt(query, "limit", DEFAULT_PAGE_SIZE);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new HttpError(400, "limit debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    private static int parseInt(Map<String, String> query, String name, int defaultValue) throws HttpError {
+        Integer value = parseInteger(query, name);
+        return value == null ? defaultValue : value;
+    }
+
+    private static Integer parseInteger(Map<String, String> query, String name) throws HttpError {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Valor no válido para " + name + ": " + value);
+        }
+    }
+
+    private static Double parseDouble(Map<String, String> query, String name) throws HttpError {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Valor no válido para " + name + ": " + value);
+        }
+    }
+
+    private static StockLedger startStockLedger(ProductDAO dao) {
+        StockLedger ledger = new StockLedger(dao, new StockMovementDAO());
+        dao.addChangeListener(ledger);
+        return ledger;
+    }
+
+    /**
+     * Sigue los cambios de otros clientes para que caché e índice no se queden atrás
+     * (-Dstore.changes.pollMillis=0 lo desactiva)
+     */
+    private static ProductChangeFeed startChangeFeed(ProductDAO dao) {
+        long interval = Long.getLong("store.changes.pollMillis", ProductChangeFeed.DEFAULT_INTERVAL_MILLIS);
+        if (interval <= 0) {
+            return null;
+        }
+        ProductChangeFeed feed = new ProductChangeFeed(dao);
+        try {
+            feed.start(interval);
+            return feed;
+        } catch (SQLException e) {
+            System.err.println("No se pudo iniciar el seguimiento de cambios: " + e.getMessage());
+            feed.close();
+            return null;
+        }
+    }
+
+    private static void closeAll(List<AutoCloseable> resources) {
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                System.err.println("Error al cerrar el servidor: " + e.getMessage());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Route {
+        Response handle() throws SQLException, HttpError;
+    }
+
+    private static final class Response {
+        final int status;
+        final CharSequence body;
+        final long rows;
+
+        Response(int status, CharSequence body, long rows) {
+            this.status = status;
+            this.body = body;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Error que se devuelve al cliente con su código HTTP
+     */
+    private static final class HttpError extends Exception {
+        final int status;
+        String allowed;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.store;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estadísticas del inventario (total y por categoría) mantenidas en memoria.
+ *
+ * Los totales se calculan una vez en la base de datos y después se actualizan aplicando
+ * la diferencia de cada escritura notificada por {@link ProductRepository}, con coste constante.
+ * Para conocer el valor anterior de una fila se guarda un índice compacto por ID con su
+ * precio, stock y categoría (unos 16 bytes por producto).
+ */
+public class InventoryStatistics implements ProductChangeListener {
+
+    /** Los productos con stock menor que este valor cuentan como stock bajo */
+    public static final int LOW_STOCK_THRESHOLD = 3;
+
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+    /** Espera antes de repetir una carga que no pudo completar el índice de filas */
+    private static final long RELOAD_DELAY_MILLIS = 5_000L;
+
+    // Totales por categoría, indexados por el ID de CategoryDictionary
+    private int[] counts = new int[0];
+    private long[] lowStockCounts = new long[0];
+    private double[] values = new double[0];
+
+    // Estado de cada fila, indexado por ID; rowCategory guarda el ID de categoría (0 = sin fila)
+    private int[] rowStock = new int[0];
+    private double[] rowPrice = new double[0];
+    private int[] rowCategory = new int[0];
+
+    private boolean ready;
+    private boolean rowsReady;
+    private boolean changedWhileLoading;
+    private Runnable changeCallback = () -> { };
+
+    // Para repetir la carga si cambia algo mientras no hay índice de filas
+    private ProductRepository source;
+    private boolean loading;
+    private boolean reloadScheduled;
+    private ScheduledExecutorService reloader;
+
+    /**
+     * Se invoca (en el hilo de la escritura) cada vez que cambian las estadísticas
+     */
+    public synchronized void setChangeCallback(Runnable changeCallback) {
+        this.changeCallback = changeCallback;
+    }
+
+    /**
+     * Calcula los totales en la base de datos y carga el índice de filas.
+     * Si hay escrituras mientras se carga, se repite la carga para no perderlas. Si aun así
+     * no se completa, o falla, la próxima escritura programa otra carga, que vuelve a
+     * calcular los totales.
+     */
+    public void load(ProductRepository dao) throws SQLException {
+        synchronized (this) {
+            source = dao;
+            loading = true;
+        }
+        try {
+            if (loadRows(dao)) {
+                return;
+            }
+        } finally {
+            synchronized (this) {
+                loading = false;
+            }
+        }
+        System.err.println("Estadísticas: demasiados cambios durante la carga, se volverá a cargar en "
+            + RELOAD_DELAY_MILLIS / 1000 + " s");
+        synchronized (this) {
+            scheduleReload();
+        }
+    }
+
+    /**
+     * @return {@code true} si se ha instalado el índice de filas
+     */
+    private boolean loadRows(ProductRepository dao) throws SQLException {
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            synchronized (this) {
+                rowsReady = false;
+                changedWhileLoading = false;
+            }
+
+            // Los totales se muestran en cuanto llegan, sin esperar al índice de filas
+            Map<String, InventoryStats> aggregates = dao.getStatsByCategory(LOW_STOCK_THRESHOLD);
+            synchronized (this) {
+                installAggregates(aggregates);
+                ready = true;
+            }
+            fireChanged();
+
+            RowLoader loader = new RowLoader();
+            dao.forEachStockRow(loader);
+            synchronized (this) {
+                if (!changedWhileLoading) {
+                    ensureCategoryCapacity(loader.maxCategory);
+                    rowStock = loader.stock;
+                    rowPrice = loader.price;
+                    rowCategory = loader.category;
+                    rowsReady = true;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indica si ya se han calculado los totales
+     */
+    public synchronized boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Totales de todo el inventario
+     */
+    public synchronized InventoryStats getTotals() {
+        int count = 0;
+        long lowStock = 0;
+        double value = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            lowStock += lowStockCounts[i];
+            value += values[i];
+        }
+        return new InventoryStats(count, lowStock, value);
+    }
+
+    /**
+     * Totales de una categoría
+     */
+    public InventoryStats getCategoryStats(String category) {
+        return getCategoryStats(CategoryDictionary.idOf(category));
+    }
+
+    /**
+     * Totales de una categoría por su ID
+     */
+    public synchronized InventoryStats getCategoryStats(int categoryId) {
+        return categoryId <= 0 || categoryId >= counts.length ? InventoryStats.EMPTY
+                : new InventoryStats(counts[categoryId], lowStockCounts[categoryId], values[categoryId]);
+    }
+
+    /**
+     * Totales de cada categoría, ordenados por nombre
+     */
+    public synchronized Map<String, InventoryStats> getStatsByCategory() {
+        Map<String, InventoryStats> result = new TreeMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                result.put(CategoryDictionary.nameOf(i), new InventoryStats(counts[i], lowStockCounts[i], values[i]));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void productSaved(Product product) {
+        synchronized (this) {
+            if (!canApply()) {
+                return;
+            }
+            int id = product.getId();
+            ensureRowCapacity(id);
+            if (rowCategory[id] != 0) {
+                removeRow(id);
+            }
+            rowStock[id] = product.getStock();
+            rowPrice[id] = product.getPrice();
+            rowCategory[id] = product.getCategoryId();
+            ensureCategoryCapacity(rowCategory[id]);
+            addRow(id);
+        }
+        fireChanged();
+    }
+
+    @Override
+    public void productDeleted(int productId) {
+        synchronized (this) {
+            if (!canApply() || !hasRow(productId)) {
+                return;
+            }
+            removeRow(productId);
+            rowCategory[productId] = 0;
+        }
+        fireChanged();
+    }
+
+    @Override
+    public void stockAdjusted(int productId, int delta) {
+        synchronized (this) {
+            if (!canApply() || !hasRow(productId)) {
+                return;
+            }
+            removeRow(productId);
+            rowStock[productId] += delta;
+            addRow(productId);
+        }
+        fireChanged();
+    }
+
+    @Override
+    public void stockSet(int productId, int newStock) {
+        synchronized (this) {
+            if (!canApply() || !hasRow(productId)) {
+                return;
+            }
+            removeRow(productId);
+            rowStock[productId] = newStock;
+            addRow(productId);
+        }
+        fireChanged();
+    }
+
+    /**
+     * Sin el índice de filas no se conoce el valor anterior: el cambio se recogerá al repetir la carga
+     */
+    private boolean canApply() {
+        if (!rowsReady) {
+            changedWhileLoading = true;
+            if (!loading) {
+                scheduleReload();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Programa una carga completa (una sola aunque lleguen muchos cambios). Se llama con el
+     * monitor tomado.
+     */
+    private void scheduleReload() {
+        if (source == null || reloadScheduled) {
+            return;
+        }
+        if (reloader == null) {
+            reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "inventory-statistics");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        reloadScheduled = true;
+        reloader.schedule(this::reload, RELOAD_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void reload() {
+        ProductRepository dao;
+        synchronized (this) {
+            reloadScheduled = false;
+            dao = source;
+        }
+        try {
+            load(dao);
+        } catch (SQLException e) {
+            System.err.println("Estadísticas: error al volver a cargar: " + e.getMessage());
+        }
+    }
+
+    private boolean hasRow(int id) {
+        return id >= 0 && id < rowCategory.length && rowCategory[id] != 0;
+    }
+
+    private void addRow(int id) {
+        int c = rowCategory[id];
+        counts[c]++;
+        if (rowStock[id] < LOW_STOCK_THRESHOLD) {
+            lowStockCounts[c]++;
+        }
+        values[c] += rowPrice[id] * rowStock[id];
+    }
+
+    private void removeRow(int id) {
+        int c = rowCategory[id];
+        counts[c]--;
+        if (rowStock[id] < LOW_STOCK_THRESHOLD) {
+            lowStockCounts[c]--;
+        }
+        values[c] -= rowPrice[id] * rowStock[id];
+    }
+
+    private void installAggregates(Map<String, InventoryStats> aggregates) {
+        Arrays.fill(counts, 0);
+        Arrays.fill(lowStockCounts, 0);
+        Arrays.fill(values, 0.0);
+        for (Map.Entry<String, InventoryStats> entry : aggregates.entrySet()) {
+            // Los almacenes devuelven nombres que ya están en el diccionario
+            int c = CategoryDictionary.idOf(entry.getKey());
+            ensureCategoryCapacity(c);
+            counts[c] = entry.getValue().getProductCount();
+            lowStockCounts[c] = entry.getValue().getLowStockCount();
+            values[c] = entry.getValue().getTotalValue();
+        }
+    }
+
+    private void ensureCategoryCapacity(int categoryId) {
+        if (categoryId >= counts.length) {
+            int capacity = Math.max(Math.max(16, categoryId + 1), counts.length * 2);
+            counts = Arrays.copyOf(counts, capacity);
+            lowStockCounts = Arrays.copyOf(lowStockCounts, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private void ensureRowCapacity(int id) {
+        if (id >= rowCategory.length) {
+            int capacity = Math.max(id + 1, rowCategory.length + (rowCategory.length >> 1));
+            rowStock = Arrays.copyOf(rowStock, capacity);
+            rowPrice = Arrays.copyOf(rowPrice, capacity);
+            rowCategory = Arrays.copyOf(rowCategory, capacity);
+        }
+    }
+
+    private void fireChanged() {
+        Runnable callback;
+        synchronized (this) {
+            callback = changeCallback;
+        }
+        callback.run();
+    }
+
+    /**
+     * Construye el índice de filas fuera del bloqueo mientras se recorre la tabla
+     */
+    private class RowLoader implements ProductRepository.StockRowConsumer {
+        int[] stock = new int[1024];
+        double[] price = new double[1024];
+        int[] category = new int[1024];
+        int maxCategory;
+
+        @Override
+        public void accept(int id, double rowPriceValue, int rowStockValue, int rowCategoryId) {
+            if (id >= category.length) {
+                int capacity = Math.max(id + 1, category.length * 2);
+                stock = Arrays.copyOf(stock, capacity);
+                price = Arrays.copyOf(price, capacity);
+                category = Arrays.copyOf(category, capacity);
+            }
+            stock[id] = rowStockValue;
+            price[id] = rowPriceValue;
+            category[id] = rowCategoryId;
+            maxCategory = Math.max(maxCategory, rowCategoryId);
+        }
+    }
+}
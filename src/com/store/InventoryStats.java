@@ -0,0 +1,44 @@
+package com.store;
+
+/**
+ * Resumen del inventario: número de productos, productos con stock bajo y valor total
+ */
+public class InventoryStats {
+    public static final InventoryStats EMPTY = new InventoryStats(0, 0, 0.0);
+
+    private final int productCount;
+    private final long lowStockCount;
+    private final double totalValue;
+
+    public InventoryStats(int productCount, long lowStockCount, double totalValue) {
+        this.productCount = productCount;
+        this.lowStockCount = lowStockCount;
+        this.totalValue = totalValue;
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public long getLowStockCount() {
+        return lowStockCount;
+    }
+
+    public double getTotalValue() {
+        return totalValue;
+    }
+
+    /**
+     * Suma de dos resúmenes
+     */
+    public InventoryStats plus(InventoryStats other) {
+        return new InventoryStats(productCount + other.productCount,
+            lowStockCount + other.lowStockCount, totalValue + other.totalValue);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("InventoryStats{productos=%d, stockBajo=%d, valor=%.2f}",
+            productCount, lowStockCount, totalValue);
+    }
+}
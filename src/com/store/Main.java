@@ -2,36 +2,74 @@ package com.store;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.sql.SQLException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 public class Main extends JFrame {
-    private ProductDAO productDAO;
+    private ProductRepository productDAO;
+    // Sin conexión con MySQL se trabaja con el almacén local
+    private MappedProductStore localStore;
     private JTable productsTable;
-    private DefaultTableModel tableModel;
+    private ProductTableModel tableModel;
     private JLabel statsLabel;
     private JComboBox<String> categoryFilter;
+    private JProgressBar progressBar;
+    private final BackgroundTaskRunner tasks = new BackgroundTaskRunner(4, 64);
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+
+    private final InventoryStatistics inventoryStatistics = new InventoryStatistics();
+    private StockLedger stockLedger;
+    private ProductChangeFeed changeFeed;
+    private final InventoryReporter reporter = new InventoryReporter();
+
+    // Qué estadísticas se muestran: las de una categoría (null = todas) o las de los resultados de búsqueda
+    private String statsCategory;
+    private boolean statsFromSearch;
+
+    // Estadísticas de los resultados de búsqueda, actualizadas con cada cambio
+    private int statsCount;
+    private long statsLowStock;
+    private double statsTotalValue;
+
+    /** Clave de las cargas que sustituyen el contenido de la tabla (cargar, filtrar, buscar) */
+    private static final String VIEW_TASK = "view";
 
     public Main() {
         initializeDAO();
         setupUI();
         loadProducts();
+        loadStatistics();
+        buildSearchIndex();
+        startStockLedger();
+        startChangeFeed();
     }
 
     private void initializeDAO() {
         try {
-            productDAO = new ProductDAO();
             if (!DatabaseConnection.testConnection()) {
+                Path localPath = Paths.get(System.getProperty("store.local.path", "inventario-local.dat"));
+                localStore = new MappedProductStore(localPath, true);
+                productDAO = localStore;
+                for (String category : CategoryDictionary.DEFAULT_CATEGORIES) {
+                    CategoryDictionary.internLocal(category);
+                }
                 JOptionPane.showMessageDialog(this, 
-                    "No se pudo conectar a la base de datos.\nVerifica que MySQL esté ejecutándose.", 
-                    "Error de Conexión", 
-                    JOptionPane.ERROR_MESSAGE);
-                System.exit(1);
+                    "No se pudo conectar a la base de datos.\nSe trabajará sin conexión con el almacén local:\n"
+                        + localPath.toAbsolutePath(), 
+                    "Modo sin conexión", 
+                    JOptionPane.WARNING_MESSAGE);
+                return;
             }
+            productDAO = new MeteredProductDAO();
+            DatabaseSchema.ensureSchema();
+            CategoryDictionary.load();
+            // -Dstore.metrics.dumpIntervalSec=60 vuelca las métricas a la consola cada minuto
+            StoreMetrics.registerMBeans();
+            StoreMetrics.startDump(Long.getLong("store.metrics.dumpIntervalSec", 0L));
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, 
                 "Error al inicializar: " + e.getMessage(), 
@@ -42,7 +80,8 @@ public class Main extends JFrame {
     }
 
     private void setupUI() {
-        setTitle("🛍️ Tienda Segunda Mano - Sistema de Gestión de Inventario");
+        setTitle("🛍️ Tienda Segunda Mano - Sistema de Gestión de Inventario"
+            + (localStore != null ? " (sin conexión)" : ""));
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(1200, 800);
         setLocationRelativeTo(null);
@@ -84,6 +123,8 @@ public class Main extends JFrame {
         addStyledButton(buttonPanel, "EDITAR", new Color(52, 152, 219), e -> editSelectedProduct());
         addStyledButton(buttonPanel, "ELIMINAR", new Color(231, 76, 60), e -> deleteSelectedProduct());
         addStyledButton(buttonPanel, "ACTUALIZAR", new Color(155, 89, 182), e -> refreshData());
+        addStyledButton(buttonPanel, "INFORME", new Color(230, 126, 34), e -> showInventoryReport());
+        addStyledButton(buttonPanel, "EXPORTAR", new Color(52, 73, 94), e -> exportInventory());
 
         headerPanel.add(buttonPanel, BorderLayout.EAST);
 
@@ -143,9 +184,11 @@ public class Main extends JFrame {
         JLabel filterLabel = new JLabel("Filtrar por categoría:");
         filterLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
 
-        String[] categories = {"Todas", "Muebles", "Música", "Electrónica", "Ropa", "Decoración", 
-                              "Libros", "Hogar", "Deportes", "Juguetes", "Joyería"};
-        categoryFilter = new JComboBox<>(categories);
+        categoryFilter = new JComboBox<>();
+        categoryFilter.addItem("Todas");
+        for (String category : CategoryDictionary.names()) {
+            categoryFilter.addItem(category);
+        }
         categoryFilter.addActionListener(e -> filterByCategory());
 
         filterPanel.add(filterLabel);
@@ -164,13 +207,9 @@ public class Main extends JFrame {
         centerPanel.add(filterPanel, BorderLayout.NORTH);
 
         // Tabla de productos
-        String[] columnNames = {"ID", "Nombre", "Precio (€)", "Stock", "Categoría", "Descripción"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Hacer la tabla no editable directamente
-            }
-        };
+        // Modelo virtual: solo se cargan de la base de datos las páginas visibles
+        tableModel = new ProductTableModel();
+        tableModel.setErrorHandler(e -> showError("Error al cargar productos: " + e.getMessage()));
 
         productsTable = new JTable(tableModel);
         productsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -202,7 +241,14 @@ public class Main extends JFrame {
         statsLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
         statsLabel.setForeground(new Color(52, 73, 94));
 
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(false);
+
         statsPanel.add(statsLabel);
+        statsPanel.add(progressBar);
+
+        tasks.setActivityListener(active -> progressBar.setVisible(active > 0));
 
         return statsPanel;
     }
@@ -230,37 +276,67 @@ public class Main extends JFrame {
     }
 
     private void loadProducts() {
-        try {
-            List<Product> products = productDAO.getAllProducts();
-            updateTable(products);
-            updateStatistics(products);
-        } catch (SQLException e) {
-            showError("Error al cargar productos: " + e.getMessage());
+        tasks.cancel(VIEW_TASK);
+        statsCategory = null;
+        statsFromSearch = false;
+        tableModel.setSource(ProductPageSource.allProducts(productDAO));
+        showInventoryStatistics();
+    }
+
+    /**
+     * Calcula las estadísticas en la base de datos; después se mantienen con las escrituras del DAO
+     */
+    private void loadStatistics() {
+        productDAO.addChangeListener(inventoryStatistics);
+        inventoryStatistics.setChangeCallback(() -> SwingUtilities.invokeLater(this::showInventoryStatistics));
+        reloadStatistics(() -> { });
+    }
+
+    private void reloadStatistics(Runnable onLoaded) {
+        tasks.submit(() -> {
+            inventoryStatistics.load(productDAO);
+            return inventoryStatistics.getTotals();
+        }, totals -> {
+            showInventoryStatistics();
+            onLoaded.run();
+        }, e -> showError("Error al calcular las estadísticas: " + e.getMessage()));
+    }
+
+    /**
+     * Muestra las estadísticas mantenidas en memoria para la vista actual (coste constante)
+     */
+    private void showInventoryStatistics() {
+        if (statsFromSearch) {
+            return;
         }
+        if (!inventoryStatistics.isReady()) {
+            statsLabel.setText("Cargando estadísticas...");
+            return;
+        }
+        InventoryStats stats = statsCategory == null
+                ? inventoryStatistics.getTotals()
+                : inventoryStatistics.getCategoryStats(statsCategory);
+        updateStatistics(stats.getProductCount(), stats.getLowStockCount(), stats.getTotalValue());
     }
 
     private void updateTable(List<Product> products) {
-        tableModel.setRowCount(0);
-        for (Product product : products) {
-            Object[] row = {
-                product.getId(),
-                product.getName(),
-                String.format("%.2f", product.getPrice()),
-                product.getStock(),
-                product.getCategory(),
-                product.getDescription()
-            };
-            tableModel.addRow(row);
-        }
+        tableModel.setSource(ProductPageSource.fromList(products));
     }
 
     private void updateStatistics(List<Product> products) {
+        statsFromSearch = true;
         int totalProducts = products.size();
         long lowStock = products.stream().filter(p -> p.getStock() < 3).count();
         double totalValue = products.stream()
                 .mapToDouble(p -> p.getPrice() * p.getStock())
                 .sum();
+        updateStatistics(totalProducts, lowStock, totalValue);
+    }
 
+    private void updateStatistics(int totalProducts, long lowStock, double totalValue) {
+        statsCount = totalProducts;
+        statsLowStock = lowStock;
+        statsTotalValue = totalValue;
         String stats = String.format(
             "Estadísticas: %d productos | %d con stock bajo | Valor total: %.2f€",
             totalProducts, lowStock, totalValue
@@ -268,6 +344,54 @@ public class Main extends JFrame {
         statsLabel.setText(stats);
     }
 
+    /**
+     * Aplica a las estadísticas de los resultados de búsqueda la diferencia entre el estado
+     * anterior y el nuevo de un producto. Las demás vistas se actualizan solas desde
+     * {@link InventoryStatistics}.
+     * @param before valores anteriores, o {@code null} si no se mostraba
+     * @param after valores nuevos, o {@code null} si ya no se muestra
+     */
+    private void adjustStatistics(Product before, Product after) {
+        if (!statsFromSearch) {
+            return;
+        }
+        int count = statsCount;
+        long lowStock = statsLowStock;
+        double totalValue = statsTotalValue;
+        if (before != null) {
+            count--;
+            lowStock -= before.getStock() < 3 ? 1 : 0;
+            totalValue -= before.getPrice() * before.getStock();
+        }
+        if (after != null) {
+            count++;
+            lowStock += after.getStock() < 3 ? 1 : 0;
+            totalValue += after.getPrice() * after.getStock();
+        }
+        updateStatistics(count, lowStock, totalValue);
+    }
+
+    // Aplicación incremental de los cambios: solo se toca la fila afectada
+
+    private void applyInserted(Product product) {
+        if (tableModel.productInserted(product)) {
+            adjustStatistics(null, product);
+        }
+    }
+
+    private void applyUpdated(int row, Product before, Product after) {
+        boolean stillShown = tableModel.productUpdated(row, after);
+        adjustStatistics(before, stillShown ? after : null);
+    }
+
+    private void applyRemoved(int row, Product before) {
+        row = tableModel.resolveRow(row, before.getId());
+        if (row >= 0) {
+            tableModel.productRemoved(row);
+            adjustStatistics(before, null);
+        }
+    }
+
     private void showAddProductDialog() {
         JDialog dialog = new JDialog(this, "Agregar Nuevo Producto", true);
         dialog.setSize(500, 400);
@@ -280,10 +404,7 @@ public class Main extends JFrame {
         JTextField nameField = new JTextField();
         JTextField priceField = new JTextField();
         JTextField stockField = new JTextField();
-        JComboBox<String> categoryCombo = new JComboBox<>(new String[]{
-            "Muebles", "Música", "Electrónica", "Ropa", "Decoración", 
-            "Libros", "Hogar", "Deportes", "Juguetes", "Joyería"
-        });
+        JComboBox<String> categoryCombo = new JComboBox<>(CategoryDictionary.names().toArray(new String[0]));
         JTextArea descriptionArea = new JTextArea(3, 20);
 
         formPanel.add(new JLabel("Nombre:"));
@@ -311,14 +432,17 @@ public class Main extends JFrame {
                     descriptionArea.getText()
                 );
 
-                productDAO.addProduct(newProduct);
-                loadProducts();
-                dialog.dispose();
-                JOptionPane.showMessageDialog(this, "Producto agregado exitosamente!", "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                saveButton.setEnabled(false);
+                tasks.submit(() -> productDAO.addProduct(newProduct), saved -> {
+                    applyInserted(saved);
+                    dialog.dispose();
+                    JOptionPane.showMessageDialog(this, "Producto agregado exitosamente!", "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                }, ex -> {
+                    saveButton.setEnabled(true);
+                    showSaveError(ex);
+                });
             } catch (InvalidProductException ex) {
                 showError("Error de validación: " + ex.getMessage());
-            } catch (SQLException ex) {
-                showError("Error de base de datos: " + ex.getMessage());
             } catch (NumberFormatException ex) {
                 showError("Por favor ingrese valores numéricos válidos para precio y stock");
             }
@@ -341,18 +465,22 @@ public class Main extends JFrame {
             return;
         }
 
-        int productId = (int) tableModel.getValueAt(selectedRow, 0);
-        try {
-            Product product = productDAO.getProductById(productId);
+        Product selected = tableModel.getProductAt(selectedRow);
+        if (selected == null) {
+            return; // La fila aún se está cargando
+        }
+        tasks.submit(() -> productDAO.getProductById(selected.getId()), product -> {
             if (product != null) {
-                showEditProductDialog(product);
+                showEditProductDialog(selectedRow, selected, product);
             }
-        } catch (SQLException e) {
-            showError("Error al cargar el producto: " + e.getMessage());
-        }
+        }, e -> showError("Error al cargar el producto: " + e.getMessage()));
     }
 
-    private void showEditProductDialog(Product product) {
+    /**
+     * @param row fila que ocupa el producto en la tabla
+     * @param shown valores que se muestran en la tabla, para ajustar las estadísticas
+     */
+    private void showEditProductDialog(int row, Product shown, Product product) {
         JDialog dialog = new JDialog(this, "Editar Producto", true);
         dialog.setSize(500, 400);
         dialog.setLocationRelativeTo(this);
@@ -364,10 +492,7 @@ public class Main extends JFrame {
         JTextField nameField = new JTextField(product.getName());
         JTextField priceField = new JTextField(String.valueOf(product.getPrice()));
         JTextField stockField = new JTextField(String.valueOf(product.getStock()));
-        JComboBox<String> categoryCombo = new JComboBox<>(new String[]{
-            "Muebles", "Música", "Electrónica", "Ropa", "Decoración", 
-            "Libros", "Hogar", "Deportes", "Juguetes", "Joyería"
-        });
+        JComboBox<String> categoryCombo = new JComboBox<>(CategoryDictionary.names().toArray(new String[0]));
         categoryCombo.setSelectedItem(product.getCategory());
         JTextArea descriptionArea = new JTextArea(product.getDescription(), 3, 20);
 
@@ -394,14 +519,26 @@ public class Main extends JFrame {
                 product.setCategory((String) categoryCombo.getSelectedItem());
                 product.setDescription(descriptionArea.getText());
 
-                productDAO.updateProduct(product);
-                loadProducts();
-                dialog.dispose();
-                JOptionPane.showMessageDialog(this, "Producto actualizado exitosamente!", "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                saveButton.setEnabled(false);
+                tasks.submit(() -> productDAO.updateProduct(product), updated -> {
+                    if (updated) {
+                        applyUpdated(row, shown, product);
+                    }
+                    dialog.dispose();
+                    JOptionPane.showMessageDialog(this, "Producto actualizado exitosamente!", "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                }, ex -> {
+                    if (ex instanceof StaleProductException) {
+                        // Otra caja lo cambió: se muestran los valores actuales y se descarta la edición
+                        dialog.dispose();
+                        showError(ex.getMessage() + ".\nSe han cargado los valores actuales; vuelva a editarlo.");
+                        reloadRow(row, shown);
+                        return;
+                    }
+                    saveButton.setEnabled(true);
+                    showSaveError(ex);
+                });
             } catch (InvalidProductException ex) {
                 showError("Error de validación: " + ex.getMessage());
-            } catch (SQLException ex) {
-                showError("Error de base de datos: " + ex.getMessage());
             } catch (NumberFormatException ex) {
                 showError("Por favor ingrese valores numéricos válidos para precio y stock");
             }
@@ -417,6 +554,19 @@ public class Main extends JFrame {
         dialog.setVisible(true);
     }
 
+    /**
+     * Vuelve a leer un producto y actualiza su fila
+     */
+    private void reloadRow(int row, Product shown) {
+        tasks.submit(() -> productDAO.getProductById(shown.getId()), current -> {
+            if (current != null) {
+                applyUpdated(row, shown, current);
+            } else {
+                applyRemoved(row, shown);
+            }
+        }, e -> showError("Error al cargar el producto: " + e.getMessage()));
+    }
+
     private void deleteSelectedProduct() {
         int selectedRow = productsTable.getSelectedRow();
         if (selectedRow == -1) {
@@ -424,8 +574,12 @@ public class Main extends JFrame {
             return;
         }
 
-        int productId = (int) tableModel.getValueAt(selectedRow, 0);
-        String productName = (String) tableModel.getValueAt(selectedRow, 1);
+        Product selected = tableModel.getProductAt(selectedRow);
+        if (selected == null) {
+            return; // La fila aún se está cargando
+        }
+        int productId = selected.getId();
+        String productName = selected.getName();
 
         int confirm = JOptionPane.showConfirmDialog(this,
             "¿Está seguro de que desea eliminar el producto:\n\"" + productName + "\"?",
@@ -434,13 +588,12 @@ public class Main extends JFrame {
             JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                productDAO.deleteProduct(productId);
-                loadProducts();
+            tasks.submit(() -> productDAO.deleteProduct(productId), deleted -> {
+                if (deleted) {
+                    applyRemoved(selectedRow, selected);
+                }
                 JOptionPane.showMessageDialog(this, "Producto eliminado exitosamente!", "Éxito", JOptionPane.INFORMATION_MESSAGE);
-            } catch (SQLException e) {
-                showError("Error al eliminar el producto: " + e.getMessage());
-            }
+            }, e -> showError("Error al eliminar el producto: " + e.getMessage()));
         }
     }
 
@@ -449,16 +602,117 @@ public class Main extends JFrame {
         if ("Todas".equals(selectedCategory)) {
             loadProducts();
         } else {
-            try {
-                List<Product> allProducts = productDAO.getAllProducts();
-                List<Product> filteredProducts = allProducts.stream()
-                    .filter(p -> p.getCategory().equals(selectedCategory))
-                    .toList();
-                updateTable(filteredProducts);
-                updateStatistics(filteredProducts);
-            } catch (SQLException e) {
-                showError("Error al filtrar productos: " + e.getMessage());
+            // Un nuevo filtro cancela la carga anterior que siga en curso; la tabla pagina
+            // la categoría con consultas indexadas y las estadísticas ya están en memoria
+            tasks.cancel(VIEW_TASK);
+            statsCategory = selectedCategory;
+            statsFromSearch = false;
+            tableModel.setSource(ProductPageSource.forFilter(productDAO,
+                new ProductFilter().setCategory(selectedCategory)));
+            showInventoryStatistics();
+        }
+    }
+
+    /**
+     * Construye el índice de búsqueda en segundo plano; después se mantiene
+     * al día con las escrituras del DAO
+     */
+    private void buildSearchIndex() {
+        productDAO.addChangeListener(searchIndex);
+        tasks.submit(() -> {
+            searchIndex.load(productDAO);
+            return searchIndex.size();
+        }, indexed -> { }, e -> System.err.println("No se pudo construir el índice de búsqueda: " + e.getMessage()));
+    }
+
+    /**
+     * Anota en el diario de movimientos los ajustes de stock y lo vacía al cerrar la ventana
+     */
+    private void startStockLedger() {
+        if (localStore != null) {
+            // El diario vive en MySQL; el almacén local se cierra al salir para forzarlo a disco
+            addWindowListener(new java.awt.event.WindowAdapter() {
+                @Override
+                public void windowClosing(java.awt.event.WindowEvent e) {
+                    try {
+                        localStore.close();
+                    } catch (java.sql.SQLException ex) {
+                        System.err.println(ex.getMessage());
+                    }
+                }
+            });
+            return;
+        }
+        stockLedger = new StockLedger((ProductDAO) productDAO, new StockMovementDAO());
+        productDAO.addChangeListener(stockLedger);
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                stockLedger.close();
             }
+        });
+    }
+
+    /**
+     * Sigue los cambios que hacen otras cajas sobre la misma base de datos
+     * (-Dstore.changes.pollMillis=0 lo desactiva)
+     */
+    private void startChangeFeed() {
+        long interval = Long.getLong("store.changes.pollMillis", ProductChangeFeed.DEFAULT_INTERVAL_MILLIS);
+        if (localStore != null || interval <= 0) {
+            return;
+        }
+        changeFeed = new ProductChangeFeed((ProductDAO) productDAO);
+        changeFeed.setChangeCallback(changes -> SwingUtilities.invokeLater(() -> applyExternalChanges(changes)));
+        changeFeed.setResyncCallback(() -> SwingUtilities.invokeLater(() -> {
+            loadProducts();
+            reloadStatistics(() -> { });
+        }));
+        try {
+            changeFeed.start(interval);
+        } catch (java.sql.SQLException e) {
+            System.err.println("No se pudo iniciar el seguimiento de cambios: " + e.getMessage());
+            changeFeed.close();
+            changeFeed = null;
+            return;
+        }
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                changeFeed.close();
+            }
+        });
+    }
+
+    /**
+     * Lleva a la tabla los cambios de otras cajas tocando solo las filas afectadas. Las filas
+     * de páginas sin cargar se leerán ya actualizadas; solo un borrado fuera de memoria o un
+     * producto nuevo más allá de la última fila conocida obligan a recontar la vista.
+     */
+    private void applyExternalChanges(List<ProductChange> changes) {
+        boolean recount = false;
+        for (ProductChange change : changes) {
+            int row = tableModel.findRow(change.getProductId());
+            if (change.isDeletion()) {
+                if (row >= 0) {
+                    applyRemoved(row, tableModel.getProductAt(row));
+                } else {
+                    recount = true;
+                }
+            } else if (row >= 0) {
+                applyUpdated(row, tableModel.getProductAt(row), change.getProduct());
+            } else {
+                int lastRow = tableModel.getRowCount() - 1;
+                Product last = lastRow >= 0 ? tableModel.getProductAt(lastRow) : null;
+                if (last != null && change.getProductId() > last.getId()) {
+                    applyInserted(change.getProduct());
+                } else if (last == null) {
+                    recount = true;
+                }
+            }
+        }
+        if (recount && !statsFromSearch) {
+            tableModel.refresh();
         }
     }
 
@@ -468,22 +722,86 @@ public class Main extends JFrame {
             return;
         }
 
-        try {
+        if (searchIndex.isReady()) {
+            List<Product> results = searchIndex.search(searchText);
+            tasks.cancel(VIEW_TASK);
+            updateTable(results);
+            updateStatistics(results);
+            return;
+        }
+
+        // Mientras se construye el índice se busca directamente sobre la base de datos
+        tasks.submit(VIEW_TASK, () -> {
             List<Product> allProducts = productDAO.getAllProducts();
-            List<Product> filteredProducts = allProducts.stream()
+            return allProducts.stream()
                 .filter(p -> p.getName().toLowerCase().contains(searchText.toLowerCase()) ||
                            p.getDescription().toLowerCase().contains(searchText.toLowerCase()))
                 .toList();
+        }, filteredProducts -> {
             updateTable(filteredProducts);
             updateStatistics(filteredProducts);
-        } catch (SQLException e) {
-            showError("Error al buscar productos: " + e.getMessage());
+        }, e -> showError("Error al buscar productos: " + e.getMessage()));
+    }
+
+    /**
+     * Genera en segundo plano el informe de cierre: valoración, distribución del stock,
+     * productos de más valor y stock sin movimientos en los últimos 90 días
+     */
+    private void showInventoryReport() {
+        // Sin conexión no hay diario de movimientos y se omite el stock sin movimiento
+        StockMovementDAO movements = localStore == null ? new StockMovementDAO() : null;
+        java.time.Instant deadSince = java.time.Instant.now().minus(java.time.Duration.ofDays(90));
+        tasks.submit(() -> reporter.generate(productDAO, movements, deadSince, 20,
+                InventoryStatistics.LOW_STOCK_THRESHOLD),
+            report -> {
+                JTextArea text = new JTextArea(report.format(), 30, 110);
+                text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+                text.setEditable(false);
+                text.setCaretPosition(0);
+                JOptionPane.showMessageDialog(this, new JScrollPane(text), "Informe de inventario",
+                    JOptionPane.PLAIN_MESSAGE);
+            },
+            e -> showError("Error al generar el informe: " + e.getMessage()));
+    }
+
+    /**
+     * Exporta el catálogo al fichero elegido; el formato sale de la extensión
+     * ({@code .csv}, {@code .jsonl}, con {@code .gz} para comprimir)
+     */
+    private void exportInventory() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new java.io.File("inventario.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
+        Path target = chooser.getSelectedFile().toPath();
+        tasks.submit(() -> new InventoryExporter(productDAO).export(target,
+                rows -> SwingUtilities.invokeLater(() -> {
+                    progressBar.setStringPainted(true);
+                    progressBar.setString("Exportados " + rows + " productos");
+                })),
+            rows -> {
+                progressBar.setStringPainted(false);
+                JOptionPane.showMessageDialog(this, "Exportados " + rows + " productos a\n" + target.toAbsolutePath(),
+                    "Exportación", JOptionPane.INFORMATION_MESSAGE);
+            },
+            e -> {
+                progressBar.setStringPainted(false);
+                showError("Error al exportar: " + e.getMessage());
+            });
     }
 
     private void refreshData() {
         loadProducts();
-        JOptionPane.showMessageDialog(this, "Datos actualizados", "Información", JOptionPane.INFORMATION_MESSAGE);
+        reloadStatistics(() -> JOptionPane.showMessageDialog(this, "Datos actualizados", "Información", JOptionPane.INFORMATION_MESSAGE));
+    }
+
+    private void showSaveError(Exception ex) {
+        if (ex instanceof InvalidProductException) {
+            showError("Error de validación: " + ex.getMessage());
+        } else {
+            showError("Error de base de datos: " + ex.getMessage());
+        }
     }
 
     private void showError(String message) {
@@ -520,6 +838,11 @@ public class Main extends JFrame {
                 c.setForeground(Color.BLACK);
             }
 
+            // Formatear el precio solo para las celdas que se pintan
+            if (value instanceof Double) {
+                setText(String.format("%.2f", (Double) value));
+            }
+
             // Alinear contenido
             if (column == 0 || column == 2 || column == 3) { // ID, Precio, Stock
                 setHorizontalAlignment(JLabel.RIGHT);
@@ -0,0 +1,792 @@
+package com.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Almacén local de productos en un fichero proyectado en memoria, para trabajar sin
+ * conexión con MySQL (y como sustituto rápido en pruebas).
+ *
+ * El fichero es un registro de solo anexión con registros de tamaño fijo: cada escritura
+ * añade la versión nueva del producto (o una marca de borrado) al final y un índice en
+ * memoria ID → número de registro apunta a la última versión. Cada registro lleva un CRC32
+ * que se escribe el último, así que al abrir el fichero tras una caída se reconstruye el
+ * índice leyendo los registros hasta el primero incompleto y el resto se descarta.
+ *
+ * Con {@code syncWrites} cada escritura se fuerza a disco antes de volver; sin él, una
+ * caída del sistema operativo puede perder las últimas escrituras, pero nunca deja el
+ * fichero inconsistente. Las versiones antiguas se eliminan con {@link #compact()}.
+ */
+public class MappedProductStore implements ProductRepository, AutoCloseable {
+
+    private static final int MAGIC = 0x50524F44; // "PROD"
+    private static final byte TYPE_PRODUCT = 1;
+    private static final byte TYPE_DELETED = 2;
+
+    /** Tamaño de cada registro: cabecera, textos en UTF-8 y CRC */
+    static final int RECORD_SIZE = 2048;
+    private static final int HEADER_SIZE = 30;
+    private static final int CRC_OFFSET = RECORD_SIZE - 4;
+    /** Registros por cada región proyectada (64 MB) */
+    private static final int CHUNK_RECORDS = 32_768;
+    private static final long CHUNK_BYTES = (long) CHUNK_RECORDS * RECORD_SIZE;
+    /** Al abrir se compacta si las versiones antiguas superan este número y a las vigentes */
+    private static final int COMPACT_MIN_DEAD = 10_000;
+    /**
+     * Distancia máxima entre un ID explícito nuevo y el mayor ID existente: el índice es un
+     * array por ID (8 bytes por posición), y un ID enorme reservaría gigas de memoria
+     */
+    static final int MAX_ID_GAP = 1_000_000;
+
+    private final Path path;
+    private final boolean syncWrites;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ProductChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final byte[] writeBuffer = new byte[RECORD_SIZE];
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    private List<MappedByteBuffer> chunks = new ArrayList<>();
+    // Índice ID -> número de registro de la última versión (-1 = no existe)
+    private long[] recordOf = new long[1024];
+    private long nextRecord;
+    private int maxId;
+    private int liveCount;
+
+    /**
+     * Abre (o crea) el almacén y reconstruye el índice a partir del fichero
+     * @param syncWrites forzar cada escritura a disco antes de volver
+     */
+    public MappedProductStore(Path path, boolean syncWrites) throws SQLException {
+        this.path = path;
+        this.syncWrites = syncWrites;
+        try {
+            open();
+            if (nextRecord - liveCount > Math.max(COMPACT_MIN_DEAD, liveCount)) {
+                compactLocked();
+            }
+        } catch (IOException e) {
+            throw new SQLException("No se pudo abrir el almacén local " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void addChangeListener(ProductChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(ProductChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    @Override
+    public Product addProduct(Product product) throws SQLException, InvalidProductException {
+        ProductValidator.validate(product);
+        CategoryDictionary.resolveLocal(product);
+        lock.writeLock().lock();
+        try {
+            product.setId(maxId + 1);
+            append(TYPE_PRODUCT, product.getId(), product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireSaved(product);
+        return product;
+    }
+
+    @Override
+    public Product getProductById(int id) throws SQLException {
+        lock.readLock().lock();
+        try {
+            return read(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> getAllProducts() throws SQLException {
+        List<Product> products = new ArrayList<>();
+        forEachProduct(products::add);
+        return products;
+    }
+
+    @Override
+    public void forEachProduct(Consumer<Product> action) throws SQLException {
+        // Se lee por bloques para no retener el bloqueo mientras se ejecuta la acción
+        int afterId = 0;
+        List<Product> page;
+        do {
+            page = getProductsAfter(afterId, 1000);
+            page.forEach(action);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (!page.isEmpty());
+    }
+
+    @Override
+    public Stream<Product> streamAllProducts() throws SQLException {
+        int lastId;
+        lock.readLock().lock();
+        try {
+            lastId = maxId;
+        } finally {
+            lock.readLock().unlock();
+        }
+        return IntStream.rangeClosed(1, lastId).mapToObj(id -> {
+            try {
+                return getProductById(id);
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        }).filter(Objects::nonNull);
+    }
+
+    @Override
+    public List<Product> getProductsAfter(int afterId, int limit) throws SQLException {
+        List<Product> products = new ArrayList<>(Math.min(limit, 1000));
+        lock.readLock().lock();
+        try {
+            for (int id = Math.max(afterId + 1, 1); id <= maxId && products.size() < limit; id++) {
+                Product product = read(id);
+                if (product != null) {
+                    products.add(product);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return products;
+    }
+
+    @Override
+    public List<Product> getProductsPage(int offset, int limit) throws SQLException {
+        return findByFilter(new ProductFilter().setOffset(offset).setLimit(limit));
+    }
+
+    @Override
+    public int countProducts() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByCategory(String category) throws SQLException {
+        return findByFilter(new ProductFilter().setCategory(category));
+    }
+
+    @Override
+    public List<Product> findByFilter(ProductFilter filter) throws SQLException {
+        List<Product> products = new ArrayList<>();
+        int toSkip = filter.getOffset();
+        int limit = filter.getLimit() > 0 ? filter.getLimit() : Integer.MAX_VALUE;
+        lock.readLock().lock();
+        try {
+            for (int id = Math.max(filter.getAfterId() + 1, 1); id <= maxId && products.size() < limit; id++) {
+                Product product = read(id);
+                if (product != null && filter.matches(product)) {
+                    if (toSkip > 0) {
+                        toSkip--;
+                    } else {
+                        products.add(product);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return products;
+    }
+
+    @Override
+    public int countProducts(ProductFilter filter) throws SQLException {
+        int count = 0;
+        lock.readLock().lock();
+        try {
+            for (int id = 1; id <= maxId; id++) {
+                Product product = read(id);
+                if (product != null && filter.matches(product)) {
+                    count++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return count;
+    }
+
+    @Override
+    public Map<String, InventoryStats> getStatsByCategory(int lowStockThreshold) throws SQLException {
+        Map<String, InventoryStats> stats = new TreeMap<>();
+        forEachStockRow((id, price, stock, categoryId) -> stats.merge(CategoryDictionary.nameOf(categoryId),
+            new InventoryStats(1, stock < lowStockThreshold ? 1 : 0, price * stock), InventoryStats::plus));
+        return stats;
+    }
+
+    @Override
+    public void forEachStockRow(StockRowConsumer action) throws SQLException {
+        lock.readLock().lock();
+        try {
+            for (int id = 1; id <= maxId; id++) {
+                long record = recordOf[id];
+                if (record >= 0) {
+                    ByteBuffer chunk = chunkOf(record);
+                    int base = offsetOf(record);
+                    action.accept(id, chunk.getDouble(base + 16), chunk.getInt(base + 12),
+                        CategoryDictionary.internLocal(readString(chunk, base, 1)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean updateProduct(Product product) throws SQLException, InvalidProductException {
+        ProductValidator.validate(product);
+        CategoryDictionary.resolveLocal(product);
+        lock.writeLock().lock();
+        try {
+            if (!exists(product.getId())) {
+                return false;
+            }
+            append(TYPE_PRODUCT, product.getId(), product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireSaved(product);
+        return true;
+    }
+
+    @Override
+    public boolean deleteProduct(int id) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            if (!exists(id)) {
+                return false;
+            }
+            append(TYPE_DELETED, id, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (ProductChangeListener listener : changeListeners) {
+            listener.productDeleted(id);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean updateStock(int productId, int newStock) throws SQLException, InvalidProductException {
+        ProductValidator.validateStock(newStock);
+        int previousStock;
+        lock.writeLock().lock();
+        try {
+            Product product = read(productId);
+            if (product == null) {
+                return false;
+            }
+            previousStock = product.getStock();
+            product.setStock(newStock);
+            append(TYPE_PRODUCT, productId, product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (ProductChangeListener listener : changeListeners) {
+            listener.stockSet(productId, previousStock, newStock);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean addToStock(int productId, int quantity) throws SQLException, InvalidProductException {
+        lock.writeLock().lock();
+        try {
+            Product product = read(productId);
+            if (product == null) {
+                throw new SQLException("Producto no encontrado con ID: " + productId);
+            }
+            ProductValidator.validateStockUpdate(product.getStock(), quantity);
+            product.setStock(product.getStock() + quantity);
+            append(TYPE_PRODUCT, productId, product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireStockAdjusted(productId, quantity);
+        return true;
+    }
+
+    @Override
+    public boolean tryAdjustStock(int productId, int delta) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            Product product = read(productId);
+            if (product == null || !isValidStock((long) product.getStock() + delta)) {
+                return false;
+            }
+            setStock(product, product.getStock() + delta);
+            append(TYPE_PRODUCT, productId, product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireStockAdjusted(productId, delta);
+        return true;
+    }
+
+    @Override
+    public List<Integer> adjustStocks(List<StockAdjustment> adjustments) throws SQLException {
+        // Las sumas en long: muchas líneas del mismo producto no pueden desbordar
+        Map<Integer, Long> deltas = new TreeMap<>();
+        for (StockAdjustment adjustment : adjustments) {
+            deltas.merge(adjustment.getProductId(), (long) adjustment.getDelta(), Long::sum);
+        }
+        List<Integer> rejected = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            // Se comprueba todo antes de escribir nada: todo o nada
+            List<Product> products = new ArrayList<>(deltas.size());
+            for (Map.Entry<Integer, Long> entry : deltas.entrySet()) {
+                Product product = read(entry.getKey());
+                if (product == null || !isValidStock(product.getStock() + entry.getValue())) {
+                    rejected.add(entry.getKey());
+                } else {
+                    products.add(product);
+                }
+            }
+            if (!rejected.isEmpty()) {
+                return rejected;
+            }
+            for (Product product : products) {
+                setStock(product, (int) (product.getStock() + deltas.get(product.getId())));
+                append(TYPE_PRODUCT, product.getId(), product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Aceptados: cada suma cabe en un int porque el stock resultante cabe
+        deltas.forEach((productId, delta) -> fireStockAdjusted(productId, delta.intValue()));
+        return rejected;
+    }
+
+    /**
+     * Stock resultante de un ajuste: ni negativo ni fuera del rango de la columna
+     */
+    private static boolean isValidStock(long stock) {
+        return stock >= 0 && stock <= Integer.MAX_VALUE;
+    }
+
+    @Override
+    public BatchResult addProducts(List<Product> products) throws SQLException {
+        BatchResult result = new BatchResult();
+        ValidationResult validation = new ValidationResult();
+        for (int i = 0; i < products.size(); i++) {
+            if (!ProductValidator.check(products.get(i), validation)) {
+                result.addFailure(i, products.get(i), validation);
+                continue;
+            }
+            try {
+                addProduct(products.get(i));
+                result.addProcessed(1);
+            } catch (InvalidProductException e) {
+                result.addFailure(i, products.get(i), e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult updateProducts(List<Product> products) throws SQLException {
+        BatchResult result = new BatchResult();
+        ValidationResult validation = new ValidationResult();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            if (!ProductValidator.check(product, validation)) {
+                result.addFailure(i, product, validation);
+                continue;
+            }
+            try {
+                if (updateProduct(product)) {
+                    result.addProcessed(1);
+                } else {
+                    result.addFailure(i, product, "Producto no encontrado con ID: " + product.getId());
+                }
+            } catch (InvalidProductException e) {
+                result.addFailure(i, product, e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult upsertProducts(List<Product> products) throws SQLException {
+        BatchResult result = new BatchResult();
+        ValidationResult validation = new ValidationResult();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            if (!ProductValidator.check(product, validation)) {
+                result.addFailure(i, product, validation);
+                continue;
+            }
+            try {
+                if (product.getId() <= 0) {
+                    addProduct(product);
+                } else {
+                    CategoryDictionary.resolveLocal(product);
+                    lock.writeLock().lock();
+                    try {
+                        if (!exists(product.getId()) && product.getId() - (long) maxId > MAX_ID_GAP) {
+                            result.addFailure(i, product, "ID " + product.getId()
+                                + " demasiado alejado del mayor ID existente (" + maxId + ")");
+                            continue;
+                        }
+                        append(TYPE_PRODUCT, product.getId(), product);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    fireSaved(product);
+                }
+                result.addProcessed(1);
+            } catch (InvalidProductException e) {
+                result.addFailure(i, product, e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reescribe el fichero con solo la última versión de cada producto
+     */
+    public void compact() throws SQLException {
+        lock.writeLock().lock();
+        try {
+            compactLocked();
+        } catch (IOException e) {
+            throw new SQLException("No se pudo compactar el almacén local: " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Fuerza a disco las escrituras pendientes y cierra el fichero
+     */
+    @Override
+    public void close() throws SQLException {
+        lock.writeLock().lock();
+        try {
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+            chunks.clear();
+            channel.close();
+        } catch (IOException e) {
+            throw new SQLException("Error al cerrar el almacén local: " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Fichero ---
+
+    private void open() throws IOException {
+        open(path);
+    }
+
+    /**
+     * Abre {@code file} y reconstruye el índice. Empieza con listas y tablas nuevas, así que
+     * quien guarde las anteriores puede restaurarlas si la apertura falla.
+     */
+    private void open(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        chunks = new ArrayList<>();
+        recordOf = new long[recordOf.length];
+        Arrays.fill(recordOf, -1);
+        nextRecord = 0;
+        maxId = 0;
+        liveCount = 0;
+
+        long records = channel.size() / RECORD_SIZE;
+        for (long record = 0; record < records; record++) {
+            ByteBuffer chunk = chunkOf(record);
+            int base = offsetOf(record);
+            int magic = chunk.getInt(base);
+            if (magic == 0) {
+                break; // Final del registro
+            }
+            if (magic != MAGIC || !crcMatches(chunk, base)) {
+                System.err.println("Almacén local: registro " + record + " incompleto, se descarta a partir de ahí");
+                break;
+            }
+            index(chunk.get(base + 4), chunk.getInt(base + 8), record);
+            nextRecord = record + 1;
+        }
+
+        // Los restos posteriores a un registro incompleto no deben reaparecer en la próxima apertura
+        long end = channel.size();
+        for (long position = nextRecord * RECORD_SIZE; position < end; position += RECORD_SIZE) {
+            long record = position / RECORD_SIZE;
+            ByteBuffer chunk = chunkOf(record);
+            int base = offsetOf(record);
+            if (chunk.getInt(base) == 0) {
+                continue;
+            }
+            chunk.put(base, new byte[RECORD_SIZE]);
+        }
+    }
+
+    /**
+     * Escribe la copia compactada, la abre y solo entonces la pone en lugar del fichero. Si algo
+     * falla, el almacén sigue con el fichero y el índice de antes.
+     */
+    private void compactLocked() throws IOException, SQLException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            byte[] record = new byte[RECORD_SIZE];
+            for (int id = 1; id <= maxId; id++) {
+                if (recordOf[id] >= 0) {
+                    chunkOf(recordOf[id]).get(offsetOf(recordOf[id]), record);
+                    out.write(ByteBuffer.wrap(record));
+                }
+            }
+            if (maxId > 0 && recordOf[maxId] < 0) {
+                // Se conserva el borrado del último ID para no volver a asignarlo
+                out.write(ByteBuffer.wrap(encode(TYPE_DELETED, maxId, null)));
+            }
+            out.force(true);
+        } catch (IOException | RuntimeException e) {
+            deleteTemporary(temporary, e);
+            throw e;
+        }
+
+        FileChannel oldChannel = channel;
+        List<MappedByteBuffer> oldChunks = chunks;
+        long[] oldRecordOf = recordOf;
+        long oldNextRecord = nextRecord;
+        int oldMaxId = maxId;
+        int oldLiveCount = liveCount;
+        try {
+            open(temporary);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            if (channel != oldChannel) {
+                try {
+                    channel.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            channel = oldChannel;
+            chunks = oldChunks;
+            recordOf = oldRecordOf;
+            nextRecord = oldNextRecord;
+            maxId = oldMaxId;
+            liveCount = oldLiveCount;
+            deleteTemporary(temporary, e);
+            throw e;
+        }
+        oldChannel.close();
+    }
+
+    /**
+     * Borra la copia a medias sin tapar el error que ha hecho fallar la compactación
+     */
+    private static void deleteTemporary(Path temporary, Exception cause) {
+        try {
+            Files.deleteIfExists(temporary);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Añade un registro al final; el CRC se escribe el último para detectar registros a medias
+     */
+    private void append(byte type, int id, Product product) throws SQLException {
+        byte[] record = encode(type, id, product);
+        long recordNumber = nextRecord;
+        MappedByteBuffer chunk;
+        try {
+            chunk = chunkOf(recordNumber);
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+        int base = offsetOf(recordNumber);
+        chunk.put(base, record, 0, CRC_OFFSET);
+        chunk.putInt(base + CRC_OFFSET, (int) crc.getValue());
+        if (syncWrites) {
+            chunk.force(base, RECORD_SIZE);
+        }
+        nextRecord++;
+        index(type, id, recordNumber);
+    }
+
+    private byte[] encode(byte type, int id, Product product) throws SQLException {
+        byte[] record = writeBuffer;
+        Arrays.fill(record, (byte) 0);
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        buffer.putInt(0, MAGIC);
+        buffer.put(4, type);
+        buffer.putInt(8, id);
+        if (product != null) {
+            buffer.putInt(12, product.getStock());
+            buffer.putDouble(16, product.getPrice());
+            int position = HEADER_SIZE;
+            String[] texts = {product.getName(), product.getCategory(), product.getDescription()};
+            for (int i = 0; i < texts.length; i++) {
+                if (texts[i] == null) {
+                    buffer.putShort(24 + 2 * i, (short) -1);
+                    continue;
+                }
+                byte[] bytes = texts[i].getBytes(StandardCharsets.UTF_8);
+                if (position + bytes.length > CRC_OFFSET) {
+                    throw new SQLException("El producto " + id + " no cabe en un registro del almacén local");
+                }
+                buffer.putShort(24 + 2 * i, (short) bytes.length);
+                buffer.put(position, bytes);
+                position += bytes.length;
+            }
+        }
+        crc.reset();
+        crc.update(record, 0, CRC_OFFSET);
+        buffer.putInt(CRC_OFFSET, (int) crc.getValue());
+        return record;
+    }
+
+    private void index(byte type, int id, long record) {
+        if (id >= recordOf.length) {
+            int capacity = Math.max(id + 1, recordOf.length * 2);
+            int oldLength = recordOf.length;
+            recordOf = Arrays.copyOf(recordOf, capacity);
+            Arrays.fill(recordOf, oldLength, capacity, -1);
+        }
+        boolean wasLive = recordOf[id] >= 0;
+        if (type == TYPE_PRODUCT) {
+            recordOf[id] = record;
+            if (!wasLive) {
+                liveCount++;
+            }
+        } else {
+            recordOf[id] = -1;
+            if (wasLive) {
+                liveCount--;
+            }
+        }
+        maxId = Math.max(maxId, id);
+    }
+
+    private boolean exists(int id) {
+        return id > 0 && id < recordOf.length && recordOf[id] >= 0;
+    }
+
+    private Product read(int id) throws SQLException {
+        if (!exists(id)) {
+            return null;
+        }
+        long record = recordOf[id];
+        ByteBuffer chunk = chunkOf(record);
+        int base = offsetOf(record);
+        try {
+            return new Product(id, readString(chunk, base, 0), chunk.getDouble(base + 16),
+                chunk.getInt(base + 12), CategoryDictionary.internLocal(readString(chunk, base, 1)),
+                readString(chunk, base, 2));
+        } catch (InvalidProductException e) {
+            throw new SQLException("Datos inválidos en el almacén local para el producto ID: " + id, e);
+        }
+    }
+
+    /**
+     * Lee el texto número {@code field} (0 = nombre, 1 = categoría, 2 = descripción) de un registro
+     */
+    private static String readString(ByteBuffer chunk, int base, int field) {
+        int position = base + HEADER_SIZE;
+        for (int i = 0; i < field; i++) {
+            position += Math.max(chunk.getShort(base + 24 + 2 * i), 0);
+        }
+        int length = chunk.getShort(base + 24 + 2 * field);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        chunk.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean crcMatches(ByteBuffer chunk, int base) {
+        byte[] record = new byte[CRC_OFFSET];
+        chunk.get(base, record);
+        crc.reset();
+        crc.update(record);
+        return (int) crc.getValue() == chunk.getInt(base + CRC_OFFSET);
+    }
+
+    private MappedByteBuffer chunkOf(long record) {
+        int index = (int) (record / CHUNK_RECORDS);
+        try {
+            // Proyectar más allá del final amplía el fichero
+            while (chunks.size() <= index) {
+                chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, chunks.size() * CHUNK_BYTES, CHUNK_BYTES));
+                if (syncWrites) {
+                    channel.force(true); // El nuevo tamaño del fichero también debe llegar a disco
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedSQLException(new SQLException("No se pudo proyectar el almacén local: " + e.getMessage(), e));
+        }
+        return chunks.get(index);
+    }
+
+    private static int offsetOf(long record) {
+        return (int) (record % CHUNK_RECORDS) * RECORD_SIZE;
+    }
+
+    private static void setStock(Product product, int stock) {
+        try {
+            product.setStock(stock);
+        } catch (InvalidProductException e) {
+            throw new IllegalStateException(e); // Ya se ha comprobado que no es negativo
+        }
+    }
+
+    private void fireSaved(Product product) {
+        for (ProductChangeListener listener : changeListeners) {
+            listener.productSaved(product);
+        }
+    }
+
+    private void fireStockAdjusted(int productId, int delta) {
+        for (ProductChangeListener listener : changeListeners) {
+            listener.stockAdjusted(productId, delta);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.store;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * {@link CachingProductDAO} que mide cada operación: latencia (p50/p99/p999), llamadas,
+ * errores y filas, publicadas en {@link StoreMetrics} con el prefijo {@code dao.}.
+ *
+ * La latencia medida es la que ve quien llama (incluye los aciertos de caché y la espera
+ * por una conexión, que el pool mide aparte en {@code connection.acquire}).
+ */
+public class MeteredProductDAO extends CachingProductDAO {
+
+    private static final OperationMetrics ADD_PRODUCT = StoreMetrics.operation("dao.addProduct");
+    private static final OperationMetrics GET_BY_ID = StoreMetrics.operation("dao.getProductById");
+    private static final OperationMetrics FOR_EACH = StoreMetrics.operation("dao.forEachProduct");
+    private static final OperationMetrics STREAM_ALL = StoreMetrics.operation("dao.streamAllProducts");
+    private static final OperationMetrics PAGE_AFTER = StoreMetrics.operation("dao.getProductsAfter");
+    private static final OperationMetrics PAGE = StoreMetrics.operation("dao.getProductsPage");
+    private static final OperationMetrics COUNT = StoreMetrics.operation("dao.countProducts");
+    private static final OperationMetrics FIND_BY_FILTER = StoreMetrics.operation("dao.findByFilter");
+    private static final OperationMetrics COUNT_BY_FILTER = StoreMetrics.operation("dao.countByFilter");
+    private static final OperationMetrics STATS = StoreMetrics.operation("dao.getStatsByCategory");
+    private static final OperationMetrics STOCK_ROWS = StoreMetrics.operation("dao.forEachStockRow");
+    private static final OperationMetrics UPDATE_PRODUCT = StoreMetrics.operation("dao.updateProduct");
+    private static final OperationMetrics DELETE_PRODUCT = StoreMetrics.operation("dao.deleteProduct");
+    private static final OperationMetrics UPDATE_STOCK = StoreMetrics.operation("dao.updateStock");
+    private static final OperationMetrics ADJUST_STOCK = StoreMetrics.operation("dao.tryAdjustStock");
+    private static final OperationMetrics ADJUST_STOCKS = StoreMetrics.operation("dao.adjustStocks");
+    private static final OperationMetrics COMPACT = StoreMetrics.operation("dao.compactStockMovements");
+    private static final OperationMetrics SAVED_SINCE = StoreMetrics.operation("dao.getSavedSince");
+    private static final OperationMetrics DELETED_SINCE = StoreMetrics.operation("dao.getDeletedSince");
+    private static final OperationMetrics ADD_PRODUCTS = StoreMetrics.operation("dao.addProducts");
+    private static final OperationMetrics UPDATE_PRODUCTS = StoreMetrics.operation("dao.updateProducts");
+    private static final OperationMetrics UPSERT_PRODUCTS = StoreMetrics.operation("dao.upsertProducts");
+
+    @Override
+    public Product addProduct(Product product) throws SQLException, InvalidProductException {
+        long start = System.nanoTime();
+        try {
+            Product added = super.addProduct(product);
+            ADD_PRODUCT.success(start, 1);
+            return added;
+        } catch (SQLException | InvalidProductException | RuntimeException e) {
+            ADD_PRODUCT.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Product getProductById(int id) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Product product = super.getProductById(id);
+            GET_BY_ID.success(start, product == null ? 0 : 1);
+            return product;
+        } catch (SQLException | RuntimeException e) {
+            GET_BY_ID.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void forEachProduct(Consumer<Product> action) throws SQLException {
+        long start = System.nanoTime();
+        long[] rows = new long[1];
+        try {
+            super.forEachProduct(product -> {
+                rows[0]++;
+                action.accept(product);
+            });
+            FOR_EACH.success(start, rows[0]);
+        } catch (SQLException | RuntimeException e) {
+            FOR_EACH.failure(start);
+            throw e;
+        }
+    }
+
+    /**
+     * La operación se mide desde que se abre el stream hasta que se cierra
+     */
+    @Override
+    public Stream<Product> streamAllProducts() throws SQLException {
+        long start = System.nanoTime();
+        long[] rows = new long[1];
+        try {
+            return super.streamAllProducts()
+                .peek(product -> rows[0]++)
+                .onClose(() -> STREAM_ALL.success(start, rows[0]));
+        } catch (SQLException | RuntimeException e) {
+            STREAM_ALL.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Product> getProductsAfter(int afterId, int limit) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            List<Product> products = super.getProductsAfter(afterId, limit);
+            PAGE_AFTER.success(start, products.size());
+            return products;
+        } catch (SQLException | RuntimeException e) {
+            PAGE_AFTER.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Product> getProductsPage(int offset, int limit) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            List<Product> products = super.getProductsPage(offset, limit);
+            PAGE.success(start, products.size());
+            return products;
+        } catch (SQLException | RuntimeException e) {
+            PAGE.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int countProducts() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            int count = super.countProducts();
+            COUNT.success(start, 1);
+            return count;
+        } catch (SQLException | RuntimeException e) {
+            COUNT.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Product> findByFilter(ProductFilter filter) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            List<Product> products = super.findByFilter(filter);
+            FIND_BY_FILTER.success(start, products.size());
+            return products;
+        } catch (SQLException | RuntimeException e) {
+            FIND_BY_FILTER.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int countProducts(ProductFilter filter) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            int count = super.countProducts(filter);
+            COUNT_BY_FILTER.success(start, 1);
+            return count;
+        } catch (SQLException | RuntimeException e) {
+            COUNT_BY_FILTER.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<String, InventoryStats> getStatsByCategory(int lowStockThreshold) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Map<String, InventoryStats> stats = super.getStatsByCategory(lowStockThreshold);
+            STATS.success(start, stats.size());
+            return stats;
+        } catch (SQLException | RuntimeException e) {
+            STATS.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void forEachStockRow(StockRowConsumer action) throws SQLException {
+        long start = System.nanoTime();
+        long[] rows = new long[1];
+        try {
+            super.forEachStockRow((id, price, stock, categoryId) -> {
+                rows[0]++;
+                action.accept(id, price, stock, categoryId);
+            });
+            STOCK_ROWS.success(start, rows[0]);
+        } catch (SQLException | RuntimeException e) {
+            STOCK_ROWS.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean updateProduct(Product product) throws SQLException, InvalidProductException {
+        long start = System.nanoTime();
+        try {
+            boolean updated = super.updateProduct(product);
+            UPDATE_PRODUCT.success(start, updated ? 1 : 0);
+            return updated;
+        } catch (SQLException | InvalidProductException | RuntimeException e) {
+            UPDATE_PRODUCT.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean deleteProduct(int id) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            boolean deleted = super.deleteProduct(id);
+            DELETE_PRODUCT.success(start, deleted ? 1 : 0);
+            return deleted;
+        } catch (SQLException | RuntimeException e) {
+            DELETE_PRODUCT.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean updateStock(int productId, int newStock) throws SQLException, InvalidProductException {
+        long start = System.nanoTime();
+        try {
+            boolean updated = super.updateStock(productId, newStock);
+            UPDATE_STOCK.success(start, updated ? 1 : 0);
+            return updated;
+        } catch (SQLException | InvalidProductException | RuntimeException e) {
+            UPDATE_STOCK.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean tryAdjustStock(int productId, int delta) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            boolean adjusted = super.tryAdjustStock(productId, delta);
+            ADJUST_STOCK.success(start, adjusted ? 1 : 0);
+            return adjusted;
+        } catch (SQLException | RuntimeException e) {
+            ADJUST_STOCK.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Integer> adjustStocks(List<StockAdjustment> adjustments) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            List<Integer> rejected = super.adjustStocks(adjustments);
+            ADJUST_STOCKS.success(start, rejected.isEmpty() ? adjustments.size() : 0);
+            return rejected;
+        } catch (SQLException | RuntimeException e) {
+            ADJUST_STOCKS.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public StockCompaction compactStockMovements(long afterMovementId, int maxMovements) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            StockCompaction compaction = super.compactStockMovements(afterMovementId, maxMovements);
+            COMPACT.success(start, compaction.getMovementCount());
+            return compaction;
+        } catch (SQLException | RuntimeException e) {
+            COMPACT.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<ProductChange> getSavedSince(Instant after, int afterId, int limit) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            List<ProductChange> changes = super.getSavedSince(after, afterId, limit);
+            SAVED_SINCE.success(start, changes.size());
+            return changes;
+        } catch (SQLException | RuntimeException e) {
+            SAVED_SINCE.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<ProductChange> getDeletedSince(Instant after, int afterId, int limit) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            List<ProductChange> changes = super.getDeletedSince(after, afterId, limit);
+            DELETED_SINCE.success(start, changes.size());
+            return changes;
+        } catch (SQLException | RuntimeException e) {
+            DELETED_SINCE.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult addProducts(List<Product> products) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            BatchResult result = super.addProducts(products);
+            ADD_PRODUCTS.success(start, result.getProcessedCount());
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            ADD_PRODUCTS.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult updateProducts(List<Product> products) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            BatchResult result = super.updateProducts(products);
+            UPDATE_PRODUCTS.success(start, result.getProcessedCount());
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            UPDATE_PRODUCTS.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult upsertProducts(List<Product> products) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            BatchResult result = super.upsertProducts(products);
+            UPSERT_PRODUCTS.success(start, result.getProcessedCount());
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            UPSERT_PRODUCTS.failure(start);
+            throw e;
+        }
+    }
+}
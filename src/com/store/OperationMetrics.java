@@ -0,0 +1,100 @@
+package com.store;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencia, llamadas, errores y filas de una operación.
+ * Registrar una llamada no reserva memoria y no bloquea.
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+
+    public OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Registra una llamada correcta iniciada en {@code startNanos} ({@link System#nanoTime()})
+     */
+    public void success(long startNanos, long rowCount) {
+        latency.record(System.nanoTime() - startNanos);
+        calls.increment();
+        rows.add(rowCount);
+    }
+
+    /**
+     * Registra una llamada que ha terminado con error
+     */
+    public void failure(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+        calls.increment();
+        errors.increment();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMeanNanos() / 1000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.getPercentileNanos(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.getPercentileNanos(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency.getPercentileNanos(0.999) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.getMaxNanos() / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        calls.reset();
+        errors.reset();
+        rows.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-28s calls=%d errors=%d rows=%d p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+            name, getCalls(), getErrors(), getRows(), getP50Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+    }
+}
@@ -0,0 +1,24 @@
+package com.store;
+
+/**
+ * Atributos JMX de una operación medida (tiempos en microsegundos)
+ */
+public interface OperationMetricsMBean {
+    long getCalls();
+
+    long getErrors();
+
+    long getRows();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
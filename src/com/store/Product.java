@@ -1,13 +1,46 @@
 package com.store;
 
+import java.util.Objects;
+
 public class Product {
+
+    /** Versión de un producto que no se ha leído de la base de datos */
+    public static final long NO_VERSION = -1;
+
+    /**
+     * Campos editables, con su columna en {@code products}
+     */
+    public enum Field {
+        NAME("name"),
+        PRICE("price"),
+        STOCK("stock"),
+        CATEGORY("category_id"),
+        DESCRIPTION("description");
+
+        private final String column;
+
+        Field(String column) {
+            this.column = column;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+    }
+
     private int id;
     private String name;
     private double price;
     private int stock;
+    // ID en CategoryDictionary (UNKNOWN si la categoría aún no tiene) y su nombre, compartido
+    private int categoryId;
     private String category;
     private String description;
 
+    // Versión leída de la base de datos y campos modificados desde entonces (un bit por Field)
+    private long version = NO_VERSION;
+    private int dirtyFields;
+
     // Constructor sin id (para nuevos productos)
     public Product(String name, double price, int stock, String category, String description) 
             throws InvalidProductException {
@@ -29,6 +62,30 @@ public class Product {
         setDescription(description);
     }
 
+    // Constructor para productos leídos con el ID de su categoría
+    public Product(int id, String name, double price, int stock, int categoryId, String description)
+            throws InvalidProductException {
+        this.id = id;
+        setName(name);
+        setPrice(price);
+        setStock(stock);
+        setCategoryId(categoryId);
+        setDescription(description);
+    }
+
+    // Constructor de copia (los datos del original ya están validados)
+    public Product(Product other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.price = other.price;
+        this.stock = other.stock;
+        this.categoryId = other.categoryId;
+        this.category = other.category;
+        this.description = other.description;
+        this.version = other.version;
+        this.dirtyFields = other.dirtyFields;
+    }
+
     // Getters y Setters con validación
     public int getId() {
         return id;
@@ -44,6 +101,9 @@ public class Product {
 
     public void setName(String name) throws InvalidProductException {
         ProductValidator.validateName(name);
+        if (!Objects.equals(this.name, name)) {
+            markDirty(Field.NAME);
+        }
         this.name = name;
     }
 
@@ -53,6 +113,9 @@ public class Product {
 
     public void setPrice(double price) throws InvalidProductException {
         ProductValidator.validatePrice(price);
+        if (Double.compare(this.price, price) != 0) {
+            markDirty(Field.PRICE);
+        }
         this.price = price;
     }
 
@@ -62,6 +125,9 @@ public class Product {
 
     public void setStock(int stock) throws InvalidProductException {
         ProductValidator.validateStock(stock);
+        if (this.stock != stock) {
+            markDirty(Field.STOCK);
+        }
         this.stock = stock;
     }
     
@@ -70,6 +136,9 @@ public class Product {
      */
     public void addStock(int quantity) throws InvalidProductException {
         ProductValidator.validateStockUpdate(this.stock, quantity);
+        if (quantity != 0) {
+            markDirty(Field.STOCK);
+        }
         this.stock += quantity;
     }
     
@@ -78,6 +147,9 @@ public class Product {
      */
     public void reduceStock(int quantity) throws InvalidProductException {
         ProductValidator.validateStockUpdate(this.stock, -quantity);
+        if (quantity != 0) {
+            markDirty(Field.STOCK);
+        }
         this.stock -= quantity;
     }
 
@@ -85,9 +157,45 @@ public class Product {
         return category;
     }
 
+    /**
+     * ID de la categoría en {@link CategoryDictionary}, o {@link CategoryDictionary#UNKNOWN}
+     * si es una categoría nueva que se registrará al guardar el producto
+     */
+    public int getCategoryId() {
+        return categoryId;
+    }
+
     public void setCategory(String category) throws InvalidProductException {
         ProductValidator.validateCategory(category);
-        this.category = category;
+        int newId = CategoryDictionary.idOf(category);
+        boolean changed = newId != CategoryDictionary.UNKNOWN
+            ? newId != categoryId
+            : categoryId != CategoryDictionary.UNKNOWN || !category.equals(this.category);
+        if (changed) {
+            markDirty(Field.CATEGORY);
+        }
+        this.categoryId = newId;
+        this.category = newId != CategoryDictionary.UNKNOWN ? CategoryDictionary.nameOf(newId) : category;
+    }
+
+    public void setCategoryId(int categoryId) throws InvalidProductException {
+        String name = CategoryDictionary.nameOf(categoryId);
+        if (name == null) {
+            throw new InvalidProductException("No existe la categoría con ID: " + categoryId);
+        }
+        if (this.categoryId != categoryId) {
+            markDirty(Field.CATEGORY);
+        }
+        this.categoryId = categoryId;
+        this.category = name;
+    }
+
+    /**
+     * Fija el ID asignado a la categoría al registrarla, sin marcarla como modificada
+     */
+    void resolveCategory(int categoryId) {
+        this.categoryId = categoryId;
+        this.category = CategoryDictionary.nameOf(categoryId);
     }
 
     public String getDescription() {
@@ -96,9 +204,45 @@ public class Product {
 
     public void setDescription(String description) throws InvalidProductException {
         ProductValidator.validateDescription(description);
+        if (!Objects.equals(this.description, description)) {
+            markDirty(Field.DESCRIPTION);
+        }
         this.description = description;
     }
 
+    /**
+     * Versión de la fila cuando se leyó, o {@link #NO_VERSION} si no viene de la base de datos
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Si algún campo ha cambiado desde que se leyó o guardó el producto
+     */
+    public boolean isDirty() {
+        return dirtyFields != 0;
+    }
+
+    public boolean isDirty(Field field) {
+        return (dirtyFields & (1 << field.ordinal())) != 0;
+    }
+
+    /**
+     * Marca los valores actuales como los guardados en la base de datos
+     */
+    void markClean() {
+        dirtyFields = 0;
+    }
+
+    private void markDirty(Field field) {
+        dirtyFields |= 1 << field.ordinal();
+    }
+
     @Override
     public String toString() {
         return String.format("Product{id=%d, name='%s', price=%.2f, stock=%d, category='%s', description='%s'}",
@@ -0,0 +1,147 @@
+package com.store;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché LRU acotada de productos con caducidad por tiempo.
+ *
+ * Para no guardar nunca un valor anterior a una escritura local, cada lectura toma un
+ * sello con {@link #stamp(int)} antes de consultar la base de datos y solo se guarda si
+ * ninguna invalidación del mismo producto ha ocurrido entretanto.
+ */
+public class ProductCache {
+
+    /** Número de contadores de versión compartidos entre los IDs */
+    private static final int STAMP_STRIPES = 1024;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Integer, Entry> entries;
+    private final AtomicLongArray versions = new AtomicLongArray(STAMP_STRIPES);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ProductCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<Integer, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > ProductCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve una copia del producto guardado, o {@code null} si no está o ha caducado
+     */
+    public Product get(int id) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(id);
+            if (entry != null && System.nanoTime() - entry.loadedAt > ttlNanos) {
+                entries.remove(id);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new Product(entry.product);
+    }
+
+    /**
+     * Sello que se toma antes de leer un producto de la base de datos
+     */
+    public long stamp(int id) {
+        return versions.get(stripe(id));
+    }
+
+    /**
+     * Guarda una copia del producto si no se ha invalidado desde que se tomó el sello
+     */
+    public void putIfUnchanged(Product product, long stamp) {
+        Entry entry = new Entry(new Product(product), System.nanoTime());
+        synchronized (entries) {
+            if (versions.get(stripe(product.getId())) == stamp) {
+                entries.put(product.getId(), entry);
+            }
+        }
+    }
+
+    /**
+     * Descarta un producto tras una escritura; las lecturas que estuvieran en curso no lo volverán a guardar
+     */
+    public void invalidate(int id) {
+        synchronized (entries) {
+            versions.incrementAndGet(stripe(id));
+            entries.remove(id);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            for (int i = 0; i < STAMP_STRIPES; i++) {
+                versions.incrementAndGet(i);
+            }
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Proporción de aciertos entre 0 y 1
+     */
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ProductCache{entradas=%d, aciertos=%d, fallos=%d, ratio=%.2f}",
+            size(), getHitCount(), getMissCount(), getHitRatio());
+    }
+
+    private static int stripe(int id) {
+        return Math.floorMod(id * 0x9E3779B9, STAMP_STRIPES);
+    }
+
+    private static class Entry {
+        final Product product;
+        final long loadedAt;
+
+        Entry(Product product, long loadedAt) {
+            this.product = product;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
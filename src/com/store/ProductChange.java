@@ -0,0 +1,47 @@
+package com.store;
+
+import java.time.Instant;
+
+/**
+ * Un cambio de un producto leído del registro de cambios de la base de datos:
+ * el producto con sus valores actuales o, si se eliminó, solo su ID
+ */
+public final class ProductChange {
+
+    private final int productId;
+    private final Product product;
+    private final Instant changedAt;
+
+    private ProductChange(int productId, Product product, Instant changedAt) {
+        this.productId = productId;
+        this.product = product;
+        this.changedAt = changedAt;
+    }
+
+    public static ProductChange saved(Product product, Instant changedAt) {
+        return new ProductChange(product.getId(), product, changedAt);
+    }
+
+    public static ProductChange deleted(int productId, Instant deletedAt) {
+        return new ProductChange(productId, null, deletedAt);
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    /**
+     * Valores actuales del producto, o {@code null} si se eliminó
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    public boolean isDeletion() {
+        return product == null;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,175 @@
+package com.store;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Trae los cambios que hacen otros clientes sobre la misma base de datos.
+ *
+ * Cada consulta lee solo las filas con {@code updated_at} posterior a la marca de la
+ * consulta anterior y las lápidas de {@code product_tombstones}, paginando por
+ * {@code (fecha, id)}. Los cambios se publican con {@link ProductDAO#publishExternalChanges},
+ * así que cachés, estadísticas e índice se actualizan igual que con una escritura local, y
+ * después se entregan al callback para actualizar la vista.
+ *
+ * Cada consulta vuelve a leer los últimos {@link #OVERLAP} antes de la marca, para no perder
+ * las transacciones que confirmaron después de haber fijado su {@code updated_at}; los
+ * cambios ya vistos en ese margen se descartan. Los cambios propios también llegan, una vez,
+ * y aplicarlos de nuevo no tiene efecto.
+ */
+public class ProductChangeFeed implements AutoCloseable {
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 2_000L;
+
+    /** Margen que se vuelve a leer en cada consulta */
+    static final Duration OVERLAP = Duration.ofSeconds(5);
+
+    /** Tiempo que se guardan las lápidas; un cliente que lleva más sin consultar debe recargar */
+    static final Duration TOMBSTONE_RETENTION = Duration.ofDays(7);
+
+    private static final int PAGE_SIZE = 500;
+
+    private final ProductDAO productDAO;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Consumer<List<ProductChange>> changeCallback = changes -> { };
+    private volatile Runnable resyncCallback = () -> { };
+
+    // Solo se usan desde poll(), que está sincronizado
+    private Instant watermark;
+    private Instant lastPoll;
+    private final Map<Integer, Instant> seenSaved = new HashMap<>();
+    private final Map<Integer, Instant> seenDeleted = new HashMap<>();
+
+    public ProductChangeFeed(ProductDAO productDAO) {
+        this.productDAO = productDAO;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "product-change-feed");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Recibe, en el hilo del feed, los cambios nuevos de cada consulta: primero los borrados
+     * y después los guardados, cada grupo en orden de fecha
+     */
+    public void setChangeCallback(Consumer<List<ProductChange>> changeCallback) {
+        this.changeCallback = changeCallback;
+    }
+
+    /**
+     * Se invoca cuando no se ha podido consultar durante más de {@link #TOMBSTONE_RETENTION}:
+     * pueden faltar borrados y hay que recargar la vista completa
+     */
+    public void setResyncCallback(Runnable resyncCallback) {
+        this.resyncCallback = resyncCallback;
+    }
+
+    /**
+     * Toma como punto de partida la hora actual de la base de datos y consulta periódicamente
+     */
+    public void start(long intervalMillis) throws SQLException {
+        synchronized (this) {
+            watermark = productDAO.getDatabaseTime();
+            lastPoll = watermark;
+        }
+        scheduler.scheduleWithFixedDelay(this::pollQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::purgeQuietly, 0, 1, TimeUnit.HOURS);
+    }
+
+    /**
+     * Lee y publica los cambios desde la última consulta
+     * @return número de cambios nuevos
+     */
+    public synchronized int poll() throws SQLException {
+        if (watermark == null) {
+            watermark = productDAO.getDatabaseTime();
+            lastPoll = watermark;
+        }
+        Instant now = productDAO.getDatabaseTime();
+        if (Duration.between(lastPoll, now).compareTo(TOMBSTONE_RETENTION) > 0) {
+            watermark = now;
+            lastPoll = now;
+            seenSaved.clear();
+            seenDeleted.clear();
+            resyncCallback.run();
+            return 0;
+        }
+
+        // Primero las lápidas: un producto que aparece después entre los guardados sigue existiendo
+        Instant from = watermark.minus(OVERLAP);
+        List<ProductChange> changes = new ArrayList<>();
+        Instant newest = watermark;
+        newest = readAll(true, from, seenDeleted, changes, newest);
+        newest = readAll(false, from, seenSaved, changes, newest);
+
+        watermark = newest;
+        lastPoll = now;
+        Instant horizon = watermark.minus(OVERLAP);
+        seenSaved.values().removeIf(changedAt -> changedAt.isBefore(horizon));
+        seenDeleted.values().removeIf(changedAt -> changedAt.isBefore(horizon));
+
+        if (!changes.isEmpty()) {
+            productDAO.publishExternalChanges(changes);
+            changeCallback.accept(changes);
+        }
+        return changes.size();
+    }
+
+    private Instant readAll(boolean deletions, Instant from, Map<Integer, Instant> seen,
+                            List<ProductChange> changes, Instant newest) throws SQLException {
+        Instant after = from;
+        int afterId = 0;
+        while (true) {
+            List<ProductChange> page = deletions
+                ? productDAO.getDeletedSince(after, afterId, PAGE_SIZE)
+                : productDAO.getSavedSince(after, afterId, PAGE_SIZE);
+            for (ProductChange change : page) {
+                Instant previous = seen.put(change.getProductId(), change.getChangedAt());
+                if (!change.getChangedAt().equals(previous)) {
+                    changes.add(change);
+                }
+                if (change.getChangedAt().isAfter(newest)) {
+                    newest = change.getChangedAt();
+                }
+            }
+            if (page.size() < PAGE_SIZE) {
+                return newest;
+            }
+            ProductChange last = page.get(page.size() - 1);
+            after = last.getChangedAt();
+            afterId = last.getProductId();
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Cambios de otros clientes: error al consultar, se reintentará: " + e.getMessage());
+        }
+    }
+
+    private void purgeQuietly() {
+        try {
+            productDAO.purgeTombstones(productDAO.getDatabaseTime().minus(TOMBSTONE_RETENTION));
+        } catch (SQLException e) {
+            System.err.println("Cambios de otros clientes: error al borrar lápidas antiguas: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
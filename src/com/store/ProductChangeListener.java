@@ -0,0 +1,41 @@
+package com.store;
+
+/**
+ * Recibe las escrituras confirmadas por {@link ProductRepository}.
+ * Se invoca en el hilo que hizo la escritura, por lo que las implementaciones
+ * deben ser seguras entre hilos y rápidas.
+ */
+public interface ProductChangeListener {
+
+    /**
+     * Un producto se ha insertado o actualizado con los valores indicados
+     */
+    void productSaved(Product product);
+
+    /**
+     * Un producto se ha eliminado
+     */
+    void productDeleted(int productId);
+
+    /**
+     * El stock de un producto ha cambiado en la cantidad indicada
+     */
+    default void stockAdjusted(int productId, int delta) {
+    }
+
+    /**
+     * El stock de un producto se ha fijado a un valor absoluto
+     */
+    default void stockSet(int productId, int newStock) {
+    }
+
+    /**
+     * El stock de un producto ha pasado de {@code previousStock} (leído en la misma transacción)
+     * a {@code newStock}. Se avisa con este método tanto en los cambios absolutos como cuando una
+     * actualización del producto completo cambia el stock, después de {@link #productSaved}.
+     * Por defecto equivale a {@link #stockSet(int, int)}.
+     */
+    default void stockSet(int productId, int previousStock, int newStock) {
+        stockSet(productId, newStock);
+    }
+}
@@ -0,0 +1,333 @@
+package com.store;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Instantánea de solo lectura del catálogo organizada por columnas.
+ *
+ * Las columnas numéricas se guardan en arrays primitivos ordenados por ID y la categoría
+ * como su ID en {@link CategoryDictionary}, así que un millón de productos ocupa unos
+ * 20 MB y los filtros y agregados son bucles sobre arrays sin crear objetos. Los textos
+ * (nombre y descripción) no se cargan con la instantánea: para unas pocas filas se leen solo
+ * esos productos, y el catálogo entero solo cuando se materializa una selección grande.
+ *
+ * Las filas seleccionadas se representan con un {@link BitSet} de posiciones, que se
+ * puede combinar con {@code and}/{@code or} antes de agregar o materializar productos.
+ */
+public final class ProductColumns {
+
+    /** Con más filas seleccionadas, {@link #toProducts} carga los textos de todo el catálogo */
+    static final int ROW_LOOKUP_LIMIT = 256;
+
+    private final ProductRepository source;
+    private final int size;
+    private final int[] ids;
+    private final double[] prices;
+    private final int[] stocks;
+    private final int[] categoryCodes;
+    // Nombres de las categorías indexados por ID, tal como estaban al cargar
+    private final String[] categories;
+
+    // Textos de todo el catálogo; descriptions se asigna antes que names
+    private volatile String[] names;
+    private String[] descriptions;
+
+    private ProductColumns(ProductRepository source, int size, int[] ids, double[] prices, int[] stocks,
+                           int[] categoryCodes, String[] categories) {
+        this.source = source;
+        this.size = size;
+        this.ids = ids;
+        this.prices = prices;
+        this.stocks = stocks;
+        this.categoryCodes = categoryCodes;
+        this.categories = categories;
+    }
+
+    /**
+     * Construye la instantánea recorriendo solo las columnas numéricas y la categoría
+     */
+    public static ProductColumns load(ProductRepository source) throws SQLException {
+        Builder builder = new Builder(Math.max(16, source.countProducts() + 64));
+        source.forEachStockRow(builder);
+        return new ProductColumns(source, builder.size, Arrays.copyOf(builder.ids, builder.size),
+            Arrays.copyOf(builder.prices, builder.size), Arrays.copyOf(builder.stocks, builder.size),
+            Arrays.copyOf(builder.codes, builder.size), CategoryDictionary.namesFor(builder.usedCategories));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    public double getPrice(int row) {
+        return prices[row];
+    }
+
+    public int getStock(int row) {
+        return stocks[row];
+    }
+
+    /**
+     * ID de la categoría de una fila en {@link CategoryDictionary}
+     */
+    public int getCategoryCode(int row) {
+        return categoryCodes[row];
+    }
+
+    public String getCategory(int row) {
+        return categories[categoryCodes[row]];
+    }
+
+    /**
+     * Límite de los IDs de categoría: todos son menores que este valor
+     */
+    public int getCategoryCount() {
+        return categories.length;
+    }
+
+    /**
+     * Nombre de una categoría, o {@code null} si el ID no existía al cargar
+     */
+    public String getCategoryName(int code) {
+        return code > 0 && code < categories.length ? categories[code] : null;
+    }
+
+    /**
+     * ID de una categoría, o -1 si no existía al cargar
+     */
+    public int codeOf(String category) {
+        int code = CategoryDictionary.idOf(category);
+        return getCategoryName(code) != null ? code : -1;
+    }
+
+    /**
+     * Fila de un producto, o -1 si no está en la instantánea
+     */
+    public int rowOf(int productId) {
+        int row = Arrays.binarySearch(ids, 0, size, productId);
+        return row >= 0 ? row : -1;
+    }
+
+    /**
+     * Filas que cumplen los criterios del filtro ({@code afterId} incluido; la paginación se ignora)
+     */
+    public BitSet select(ProductFilter filter) {
+        BitSet rows = new BitSet(size);
+        int categoryCode = -2;
+        if (filter.getCategory() != null) {
+            categoryCode = filter.getCategoryId();
+            if (getCategoryName(categoryCode) == null) {
+                return rows;
+            }
+        }
+        int minStock = filter.getMinStock() != null ? filter.getMinStock() : Integer.MIN_VALUE;
+        int maxStock = filter.getMaxStock() != null ? filter.getMaxStock() : Integer.MAX_VALUE;
+        double minPrice = filter.getMinPrice() != null ? filter.getMinPrice() : Double.NEGATIVE_INFINITY;
+        double maxPrice = filter.getMaxPrice() != null ? filter.getMaxPrice() : Double.POSITIVE_INFINITY;
+
+        int first = filter.getAfterId() > 0 ? firstRowAfter(filter.getAfterId()) : 0;
+        for (int row = first; row < size; row++) {
+            if ((categoryCode == -2 || categoryCodes[row] == categoryCode)
+                    && stocks[row] >= minStock && stocks[row] <= maxStock
+                    && prices[row] >= minPrice && prices[row] <= maxPrice) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Filas con stock menor que el umbral
+     */
+    public BitSet lowStock(int threshold) {
+        BitSet rows = new BitSet(size);
+        for (int row = 0; row < size; row++) {
+            if (stocks[row] < threshold) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Totales de todo el catálogo
+     */
+    public InventoryStats aggregate(int lowStockThreshold) {
+        long lowStock = 0;
+        double value = 0;
+        for (int row = 0; row < size; row++) {
+            if (stocks[row] < lowStockThreshold) {
+                lowStock++;
+            }
+            value += prices[row] * stocks[row];
+        }
+        return new InventoryStats(size, lowStock, value);
+    }
+
+    /**
+     * Totales de las filas seleccionadas
+     */
+    public InventoryStats aggregate(BitSet rows, int lowStockThreshold) {
+        int count = 0;
+        long lowStock = 0;
+        double value = 0;
+        for (int row = rows.nextSetBit(0); row >= 0 && row < size; row = rows.nextSetBit(row + 1)) {
+            count++;
+            if (stocks[row] < lowStockThreshold) {
+                lowStock++;
+            }
+            value += prices[row] * stocks[row];
+        }
+        return new InventoryStats(count, lowStock, value);
+    }
+
+    /**
+     * Totales por categoría, ordenados por nombre
+     */
+    public Map<String, InventoryStats> aggregateByCategory(int lowStockThreshold) {
+        int[] counts = new int[categories.length];
+        long[] lowStock = new long[categories.length];
+        double[] values = new double[categories.length];
+        for (int row = 0; row < size; row++) {
+            int code = categoryCodes[row];
+            counts[code]++;
+            if (stocks[row] < lowStockThreshold) {
+                lowStock[code]++;
+            }
+            values[code] += prices[row] * stocks[row];
+        }
+        Map<String, InventoryStats> result = new TreeMap<>();
+        for (int code = 0; code < categories.length; code++) {
+            if (counts[code] > 0) {
+                result.put(categories[code], new InventoryStats(counts[code], lowStock[code], values[code]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Nombre del producto de una fila, leyendo solo ese producto si los textos no están cargados,
+     * o {@code null} si se ha eliminado después de la instantánea
+     */
+    public String getName(int row) throws SQLException {
+        if (names != null) {
+            return names[row];
+        }
+        Product product = source.getProductById(ids[row]);
+        return product != null ? product.getName() : null;
+    }
+
+    /**
+     * Descripción del producto de una fila, leyendo solo ese producto si los textos no están
+     * cargados, o {@code null} si se ha eliminado después de la instantánea
+     */
+    public String getDescription(int row) throws SQLException {
+        if (names != null) {
+            return descriptions[row];
+        }
+        Product product = source.getProductById(ids[row]);
+        return product != null ? product.getDescription() : null;
+    }
+
+    /**
+     * Crea los productos de las filas seleccionadas, en orden de ID, con los valores de la
+     * instantánea. Hasta {@link #ROW_LOOKUP_LIMIT} filas se leen los textos producto a producto;
+     * con más se cargan los de todo el catálogo una sola vez.
+     * Las filas cuyo producto se ha eliminado después de la instantánea se omiten.
+     */
+    public List<Product> toProducts(BitSet rows) throws SQLException {
+        boolean lookup = names == null && rows.cardinality() <= ROW_LOOKUP_LIMIT;
+        if (!lookup) {
+            loadText();
+        }
+        List<Product> products = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0 && row < size; row = rows.nextSetBit(row + 1)) {
+            String name;
+            String description;
+            if (lookup) {
+                Product current = source.getProductById(ids[row]);
+                name = current != null ? current.getName() : null;
+                description = current != null ? current.getDescription() : null;
+            } else {
+                name = names[row];
+                description = descriptions[row];
+            }
+            if (name == null) {
+                continue;
+            }
+            try {
+                products.add(new Product(ids[row], name, prices[row], stocks[row], categoryCodes[row], description));
+            } catch (InvalidProductException e) {
+                throw new SQLException("Datos inválidos para el producto ID: " + ids[row], e);
+            }
+        }
+        return products;
+    }
+
+    private synchronized void loadText() throws SQLException {
+        if (names != null) {
+            return;
+        }
+        String[] loadedNames = new String[size];
+        String[] loadedDescriptions = new String[size];
+        source.forEachProduct(product -> {
+            int row = rowOf(product.getId());
+            if (row >= 0) {
+                loadedNames[row] = product.getName();
+                loadedDescriptions[row] = product.getDescription();
+            }
+        });
+        descriptions = loadedDescriptions;
+        names = loadedNames;
+    }
+
+    private int firstRowAfter(int productId) {
+        int row = Arrays.binarySearch(ids, 0, size, productId);
+        return row >= 0 ? row + 1 : -row - 1;
+    }
+
+    /**
+     * Acumula las filas en arrays que crecen según hace falta
+     */
+    private static class Builder implements ProductRepository.StockRowConsumer {
+        int size;
+        int[] ids;
+        double[] prices;
+        int[] stocks;
+        int[] codes;
+        final BitSet usedCategories = new BitSet();
+
+        Builder(int capacity) {
+            ids = new int[capacity];
+            prices = new double[capacity];
+            stocks = new int[capacity];
+            codes = new int[capacity];
+        }
+
+        @Override
+        public void accept(int id, double price, int stock, int categoryId) {
+            if (size == ids.length) {
+                int capacity = size + (size >> 1) + 16;
+                ids = Arrays.copyOf(ids, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                stocks = Arrays.copyOf(stocks, capacity);
+                codes = Arrays.copyOf(codes, capacity);
+            }
+            usedCategories.set(categoryId);
+            ids[size] = id;
+            prices[size] = price;
+            stocks[size] = stock;
+            codes[size] = categoryId;
+            size++;
+        }
+    }
+}
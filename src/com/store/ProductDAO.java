@@ -5,10 +5,41 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class ProductDAO {
+public class ProductDAO implements ProductRepository {
+    
+    /** Filas por transacción en las operaciones por lotes */
+    private static final int BATCH_CHUNK_SIZE = 1000;
+    
+    /** Filas por lectura en drivers sin streaming fila a fila */
+    private static final int STREAMING_FETCH_SIZE = 1000;
+    
+    private final List<ProductChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Registra un listener que se notifica tras cada escritura confirmada
+     */
+    public void addChangeListener(ProductChangeListener listener) {
+        changeListeners.add(listener);
+    }
+    
+    public void removeChangeListener(ProductChangeListener listener) {
+        changeListeners.remove(listener);
+    }
     
     /**
      * Añade un producto a la base de datos con validación
@@ -16,8 +47,9 @@ public class ProductDAO {
     public Product addProduct(Product product) throws SQLException, InvalidProductException {
         // Validar el producto antes de insertarlo
         ProductValidator.validate(product);
+        CategoryDictionary.resolve(product);
         
-        String sql = "INSERT INTO products (name, price, stock, category, description) VALUES (?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO products (name, price, stock, category_id, description) VALUES (?, ?, ?, ?, ?)";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
@@ -25,7 +57,7 @@ public class ProductDAO {
             stmt.setString(1, product.getName());
             stmt.setDouble(2, product.getPrice());
             stmt.setInt(3, product.getStock());
-            stmt.setString(4, product.getCategory());
+            stmt.setInt(4, product.getCategoryId());
             stmt.setString(5, product.getDescription());
             
             int affectedRows = stmt.executeUpdate();
@@ -37,6 +69,8 @@ public class ProductDAO {
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     product.setId(generatedKeys.getInt(1));
+                    fireSaved(product);
+                    fireStockChanged(product, 0);
                     return product;
                 } else {
                     throw new SQLException("La creación del producto falló, no se obtuvo el ID.");
@@ -59,14 +93,7 @@ public class ProductDAO {
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     try {
-                        return new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getDouble("price"),
-                            rs.getInt("stock"),
-                            rs.getString("category"),
-                            rs.getString("description")
-                        );
+                        return mapRow(rs);
                     } catch (InvalidProductException e) {
                         // Si los datos en la BD son inválidos, loguearlo
                         throw new SQLException("Datos inválidos en la base de datos para el producto ID: " + id, e);
@@ -79,119 +106,1175 @@ public class ProductDAO {
     }
 
     /**
-     * Obtiene todos los productos
+     * Obtiene todos los productos en una lista.
+     * Para catálogos grandes es preferible {@link #streamAllProducts()},
+     * {@link #forEachProduct(Consumer)} o {@link #getProductsAfter(int, int)}.
      */
     public List<Product> getAllProducts() throws SQLException {
         List<Product> products = new ArrayList<>();
+        forEachProduct(products::add);
+        return products;
+    }
+
+    /**
+     * Recorre todos los productos en orden de ID sin cargarlos en memoria,
+     * usando el streaming de filas del driver
+     */
+    public void forEachProduct(Consumer<Product> action) throws SQLException {
         String sql = "SELECT * FROM products ORDER BY id";
         
         try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
+             Statement stmt = createStreamingStatement(conn);
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
+                Product product = mapRowOrSkip(rs);
+                if (product != null) {
+                    action.accept(product);
+                }
+            }
+        }
+    }
+
+    /**
+     * Devuelve un {@link Stream} perezoso de todos los productos en orden de ID.
+     * El stream mantiene una conexión abierta hasta que se cierra, por lo que debe
+     * usarse dentro de un try-with-resources. Los errores de lectura se propagan
+     * como {@link UncheckedSQLException}.
+     */
+    public Stream<Product> streamAllProducts() throws SQLException {
+        String sql = "SELECT * FROM products ORDER BY id";
+        
+        Connection conn = DatabaseConnection.getConnection();
+        Statement stmt = null;
+        ResultSet rs;
+        try {
+            stmt = createStreamingStatement(conn);
+            rs = stmt.executeQuery(sql);
+        } catch (SQLException e) {
+            closeQuietly(stmt);
+            closeQuietly(conn);
+            throw e;
+        }
+        
+        Spliterator<Product> spliterator = new Spliterators.AbstractSpliterator<Product>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Product> action) {
                 try {
-                    Product product = new Product(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getDouble("price"),
-                        rs.getInt("stock"),
-                        rs.getString("category"),
-                        rs.getString("description")
-                    );
-                    products.add(product);
-                } catch (InvalidProductException e) {
-                    // Registrar el error pero continuar con los demás productos
-                    System.err.println("Producto inválido ignorado (ID: " + rs.getInt("id") + "): " + e.getMessage());
+                    while (rs.next()) {
+                        Product product = mapRowOrSkip(rs);
+                        if (product != null) {
+                            action.accept(product);
+                            return true;
+                        }
+                    }
+                    return false;
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException(e);
+                }
+            }
+        };
+        
+        Statement openStmt = stmt;
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            closeQuietly(rs);
+            closeQuietly(openStmt);
+            closeQuietly(conn);
+        });
+    }
+
+    /**
+     * Obtiene una página de productos con ID mayor que {@code afterId} (paginación por clave).
+     * El coste de cada página es constante sin importar en qué punto del catálogo se esté.
+     * @param afterId último ID de la página anterior (0 para empezar)
+     * @param limit número máximo de productos a devolver
+     */
+    public List<Product> getProductsAfter(int afterId, int limit) throws SQLException {
+        List<Product> products = new ArrayList<>(Math.min(limit, 1000));
+        String sql = "SELECT * FROM products WHERE id > ? ORDER BY id LIMIT ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Product product = mapRowOrSkip(rs);
+                    if (product != null) {
+                        products.add(product);
+                    }
                 }
             }
         }
+        return products;
+    }
+
+    /**
+     * Obtiene una página de productos por posición, en orden de ID
+     */
+    public List<Product> getProductsPage(int offset, int limit) throws SQLException {
+        List<Product> products = new ArrayList<>(Math.min(limit, 1000));
+        String sql = "SELECT * FROM products ORDER BY id LIMIT ? OFFSET ?";
         
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, limit);
+            stmt.setInt(2, offset);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Product product = mapRowOrSkip(rs);
+                    if (product != null) {
+                        products.add(product);
+                    }
+                }
+            }
+        }
         return products;
     }
 
     /**
-     * Actualiza un producto con validación
+     * Cuenta los productos sin transferir sus filas
+     */
+    public int countProducts() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM products";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Obtiene los productos de una categoría usando el índice sobre {@code category_id}
+     */
+    public List<Product> findByCategory(String category) throws SQLException {
+        return findByFilter(new ProductFilter().setCategory(category));
+    }
+
+    /**
+     * Obtiene los productos que cumplen los criterios, en orden de ID.
+     * El filtrado y la paginación se hacen en la base de datos.
+     */
+    public List<Product> findByFilter(ProductFilter filter) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM products");
+        appendWhere(sql, params, filter, true);
+        sql.append(" ORDER BY id");
+        if (filter.getLimit() > 0) {
+            sql.append(" LIMIT ?");
+            params.add(filter.getLimit());
+            if (filter.getOffset() > 0) {
+                sql.append(" OFFSET ?");
+                params.add(filter.getOffset());
+            }
+        }
+        
+        List<Product> products = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            
+            bindParameters(stmt, params);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Product product = mapRowOrSkip(rs);
+                    if (product != null) {
+                        products.add(product);
+                    }
+                }
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Cuenta los productos que cumplen los criterios (se ignora la paginación)
+     */
+    public int countProducts(ProductFilter filter) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM products");
+        appendWhere(sql, params, filter, false);
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            
+            bindParameters(stmt, params);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Calcula en la base de datos el número de productos, los de stock bajo y el valor
+     * total del inventario, agrupados por categoría
+     * @param lowStockThreshold los productos con stock menor que este valor cuentan como stock bajo
+     */
+    public Map<String, InventoryStats> getStatsByCategory(int lowStockThreshold) throws SQLException {
+        String sql = "SELECT category_id, COUNT(*), SUM(CASE WHEN stock < ? THEN 1 ELSE 0 END), SUM(price * stock) "
+                   + "FROM products GROUP BY category_id";
+        Map<String, InventoryStats> stats = new TreeMap<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, lowStockThreshold);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    stats.put(CategoryDictionary.lookup(rs.getInt(1)),
+                        new InventoryStats(rs.getInt(2), rs.getLong(3), rs.getDouble(4)));
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Recorre en streaming solo las columnas id, precio, stock y categoría de todos los productos
+     */
+    public void forEachStockRow(StockRowConsumer action) throws SQLException {
+        String sql = "SELECT id, price, stock, category_id FROM products ORDER BY id";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = createStreamingStatement(conn);
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                action.accept(rs.getInt(1), rs.getDouble(2), rs.getInt(3), rs.getInt(4));
+            }
+        }
+    }
+
+    /**
+     * Actualiza un producto con validación. Si el producto se leyó de la base de datos solo
+     * se escriben los campos modificados, y únicamente si la fila sigue en la versión leída.
+     * @return {@code false} si el producto no existe
+     * @throws StaleProductException si otro cliente lo ha modificado desde que se leyó
      */
     public boolean updateProduct(Product product) throws SQLException, InvalidProductException {
         // Validar el producto antes de actualizarlo
         ProductValidator.validate(product);
+        CategoryDictionary.resolve(product);
+        
+        if (product.getVersion() == Product.NO_VERSION) {
+            return updateAllFields(product);
+        }
+        if (!product.isDirty()) {
+            return true;
+        }
         
-        String sql = "UPDATE products SET name = ?, price = ?, stock = ?, category = ?, description = ? WHERE id = ?";
+        // Solo las columnas modificadas, y solo si nadie ha cambiado la fila desde que se leyó
+        List<Product.Field> fields = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("UPDATE products SET ");
+        for (Product.Field field : Product.Field.values()) {
+            if (product.isDirty(field)) {
+                fields.add(field);
+                sql.append(field.getColumn()).append(" = ?, ");
+            }
+        }
+        sql.append("version = version + 1 WHERE id = ? AND version = ?");
+        
+        int affectedRows;
+        Map<Integer, Integer> previousStock = Map.of();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            conn.setAutoCommit(false);
+            try {
+                if (product.isDirty(Product.Field.STOCK)) {
+                    previousStock = lockStocks(conn, List.of(product.getId()));
+                }
+                int index = 1;
+                for (Product.Field field : fields) {
+                    bindField(stmt, index++, product, field);
+                }
+                stmt.setInt(index++, product.getId());
+                stmt.setLong(index, product.getVersion());
+                affectedRows = stmt.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        if (affectedRows == 0) {
+            if (getStock(product.getId()) != null) {
+                throw new StaleProductException(product.getId(), product.getVersion());
+            }
+            return false;
+        }
+        product.setVersion(product.getVersion() + 1);
+        product.markClean();
+        fireSaved(product);
+        fireStockChanged(product, previousStock.get(product.getId()));
+        return true;
+    }
+    
+    /**
+     * Escribe todas las columnas sin comprobar la versión, para productos que no se han
+     * leído de la base de datos
+     */
+    private boolean updateAllFields(Product product) throws SQLException {
+        String sql = "UPDATE products SET name = ?, price = ?, stock = ?, category_id = ?, description = ?, "
+                   + "version = version + 1 WHERE id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, product.getName());
-            stmt.setDouble(2, product.getPrice());
-            stmt.setInt(3, product.getStock());
-            stmt.setString(4, product.getCategory());
-            stmt.setString(5, product.getDescription());
-            stmt.setInt(6, product.getId());
-            
-            int affectedRows = stmt.executeUpdate();
+            Map<Integer, Integer> previousStock;
+            int affectedRows;
+            conn.setAutoCommit(false);
+            try {
+                previousStock = lockStocks(conn, List.of(product.getId()));
+                stmt.setString(1, product.getName());
+                stmt.setDouble(2, product.getPrice());
+                stmt.setInt(3, product.getStock());
+                stmt.setInt(4, product.getCategoryId());
+                stmt.setString(5, product.getDescription());
+                stmt.setInt(6, product.getId());
+                affectedRows = stmt.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            if (affectedRows > 0) {
+                product.markClean();
+                fireSaved(product);
+                fireStockChanged(product, previousStock.get(product.getId()));
+            }
             return affectedRows > 0;
         }
     }
+    
+    private static void bindField(PreparedStatement stmt, int index, Product product, Product.Field field)
+            throws SQLException {
+        switch (field) {
+            case NAME:
+                stmt.setString(index, product.getName());
+                break;
+            case PRICE:
+                stmt.setDouble(index, product.getPrice());
+                break;
+            case STOCK:
+                stmt.setInt(index, product.getStock());
+                break;
+            case CATEGORY:
+                stmt.setInt(index, product.getCategoryId());
+                break;
+            case DESCRIPTION:
+                stmt.setString(index, product.getDescription());
+                break;
+            default:
+                throw new IllegalArgumentException("Campo desconocido: " + field);
+        }
+    }
 
     /**
      * Elimina un producto por su ID
      */
     public boolean deleteProduct(int id) throws SQLException {
         String sql = "DELETE FROM products WHERE id = ?";
+        // La lápida en la misma transacción avisa del borrado a los demás clientes
+        String tombstoneSql = "INSERT INTO product_tombstones (product_id, deleted_at) VALUES (?, CURRENT_TIMESTAMP(3))";
         
+        int affectedRows;
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, id);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             PreparedStatement tombstoneStmt = conn.prepareStatement(tombstoneSql)) {
+            conn.setAutoCommit(false);
+            try {
+                stmt.setInt(1, id);
+                affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    tombstoneStmt.setInt(1, id);
+                    tombstoneStmt.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         }
+        if (affectedRows > 0) {
+            fireDeleted(id);
+        }
+        return affectedRows > 0;
     }
     
     /**
-     * Actualiza solo el stock de un producto con validación
+     * Actualiza solo el stock de un producto con validación. El stock anterior se lee
+     * bloqueando la fila en la misma transacción, para avisar de la diferencia exacta.
      */
     public boolean updateStock(int productId, int newStock) throws SQLException, InvalidProductException {
         // Validar el nuevo stock
         ProductValidator.validateStock(newStock);
         
-        String sql = "UPDATE products SET stock = ? WHERE id = ?";
+        String sql = "UPDATE products SET stock = ?, version = version + 1 WHERE id = ?";
         
+        Integer previousStock;
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, newStock);
-            stmt.setInt(2, productId);
-            
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            conn.setAutoCommit(false);
+            try {
+                previousStock = lockStocks(conn, List.of(productId)).get(productId);
+                if (previousStock == null) {
+                    conn.rollback();
+                    return false;
+                }
+                stmt.setInt(1, newStock);
+                stmt.setInt(2, productId);
+                stmt.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        for (ProductChangeListener listener : changeListeners) {
+            listener.stockSet(productId, previousStock, newStock);
         }
+        return true;
     }
     
     /**
-     * Añade cantidad al stock existente de manera segura
+     * Añade cantidad al stock existente de manera segura.
+     * La comprobación y el cambio se hacen en una única sentencia atómica; solo si
+     * se rechaza se consulta el producto para informar del motivo.
      */
     public boolean addToStock(int productId, int quantity) throws SQLException, InvalidProductException {
-        Product product = getProductById(productId);
+        if (tryAdjustStock(productId, quantity)) {
+            return true;
+        }
         
-        if (product == null) {
+        Integer currentStock = getStock(productId);
+        if (currentStock == null) {
             throw new SQLException("Producto no encontrado con ID: " + productId);
         }
         
         // Validar que la operación no resulte en stock negativo
-        ProductValidator.validateStockUpdate(product.getStock(), quantity);
-        
-        String sql = "UPDATE products SET stock = stock + ? WHERE id = ?";
+        ProductValidator.validateStockUpdate(currentStock, quantity);
+        return false; // El stock cambió entre ambas consultas
+    }
+    
+    /**
+     * Aplica un cambio de stock solo si el resultado no es negativo, en una única
+     * sentencia atómica ({@code WHERE stock + delta >= 0})
+     * @return {@code true} si se aplicó; {@code false} si el producto no existe o no hay stock suficiente
+     */
+    public boolean tryAdjustStock(int productId, int delta) throws SQLException {
+        String sql = "UPDATE products SET stock = stock + ?, version = version + 1 WHERE id = ? AND stock + ? >= 0";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setInt(1, quantity);
+            stmt.setInt(1, delta);
             stmt.setInt(2, productId);
+            stmt.setInt(3, delta);
             
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            fireStockAdjusted(productId, delta);
+            return true;
+        }
+    }
+    
+    /**
+     * Aplica varios cambios de stock (por ejemplo, las líneas de un ticket) en un único
+     * lote y una única transacción. Los cambios sobre un mismo producto se suman antes
+     * de enviarse. Es todo o nada: si algún producto no existe o se quedaría con stock
+     * negativo no se aplica ninguno.
+     * @return IDs de los productos rechazados; vacía si se aplicaron todos los cambios
+     */
+    public List<Integer> adjustStocks(List<StockAdjustment> adjustments) throws SQLException {
+        // Orden por ID: las transacciones concurrentes bloquean las filas en el mismo orden
+        Map<Integer, Integer> deltas = new TreeMap<>();
+        for (StockAdjustment adjustment : adjustments) {
+            deltas.merge(adjustment.getProductId(), adjustment.getDelta(), Integer::sum);
+        }
+        List<Integer> rejected = new ArrayList<>();
+        if (deltas.isEmpty()) {
+            return rejected;
+        }
+        
+        String sql = "UPDATE products SET stock = stock + ?, version = version + 1 WHERE id = ? AND stock + ? >= 0";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            try {
+                List<Integer> ids = new ArrayList<>(deltas.keySet());
+                for (int id : ids) {
+                    int delta = deltas.get(id);
+                    stmt.setInt(1, delta);
+                    stmt.setInt(2, id);
+                    stmt.setInt(3, delta);
+                    stmt.addBatch();
+                }
+                int[] counts = stmt.executeBatch();
+                
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        rejected.add(ids.get(i));
+                    }
+                }
+                if (rejected.isEmpty()) {
+                    conn.commit();
+                    deltas.forEach(this::fireStockAdjusted);
+                } else {
+                    conn.rollback();
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return rejected;
+    }
+    
+    /**
+     * Aplica a {@code products.stock} los movimientos pendientes del diario de stock con ID
+     * mayor que {@code afterMovementId} (como mucho {@code maxMovements}) y los marca como
+     * aplicados, todo en una transacción.
+     *
+     * Cada movimiento se reclama con {@code applied = FALSE} en la condición antes de sumarlo,
+     * así que si dos clientes compactan a la vez cada movimiento se aplica una sola vez: el
+     * segundo espera al bloqueo de la fila y no la reclama. Los movimientos que dejarían el stock
+     * en negativo no se aplican y siguen pendientes; los de productos borrados se descartan.
+     */
+    public StockCompaction compactStockMovements(long afterMovementId, int maxMovements) throws SQLException {
+        String selectSql = "SELECT id, product_id, delta FROM stock_movements "
+                         + "WHERE applied = FALSE AND id > ? ORDER BY id LIMIT ?";
+        String claimSql = "UPDATE stock_movements SET applied = TRUE WHERE id = ? AND applied = FALSE";
+        String updateSql = "UPDATE products SET stock = stock + ?, version = version + 1 WHERE id = ? AND stock + ? >= 0";
+        String releaseSql = "UPDATE stock_movements SET applied = FALSE WHERE id = ?";
+        Map<Integer, Integer> deltas = new TreeMap<>();
+        List<Integer> rejected = new ArrayList<>();
+        int movementCount;
+        long lastMovementId = afterMovementId;
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                List<Long> movementIds = new ArrayList<>();
+                List<Integer> productIds = new ArrayList<>();
+                List<Integer> movementDeltas = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                    stmt.setLong(1, afterMovementId);
+                    stmt.setInt(2, maxMovements);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            movementIds.add(rs.getLong(1));
+                            productIds.add(rs.getInt(2));
+                            movementDeltas.add(rs.getInt(3));
+                        }
+                    }
+                }
+                movementCount = movementIds.size();
+                if (movementIds.isEmpty()) {
+                    conn.commit();
+                    return new StockCompaction(deltas, rejected, 0, lastMovementId);
+                }
+                lastMovementId = movementIds.get(movementIds.size() - 1);
+                
+                // Solo se suman los movimientos que esta transacción ha pasado a aplicados
+                Map<Integer, List<Long>> claimed = new TreeMap<>();
+                try (PreparedStatement stmt = conn.prepareStatement(claimSql)) {
+                    for (long movementId : movementIds) {
+                        stmt.setLong(1, movementId);
+                        stmt.addBatch();
+                    }
+                    int[] counts = stmt.executeBatch();
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] != 0) {
+                            claimed.computeIfAbsent(productIds.get(i), id -> new ArrayList<>()).add(movementIds.get(i));
+                            deltas.merge(productIds.get(i), movementDeltas.get(i), Integer::sum);
+                        }
+                    }
+                }
+                
+                List<Integer> ids = new ArrayList<>(deltas.keySet());
+                try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                    for (int productId : ids) {
+                        int delta = deltas.get(productId);
+                        stmt.setInt(1, delta);
+                        stmt.setInt(2, productId);
+                        stmt.setInt(3, delta);
+                        stmt.addBatch();
+                    }
+                    int[] counts = stmt.executeBatch();
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] == 0) {
+                            deltas.remove(ids.get(i));
+                            if (productExists(conn, ids.get(i))) {
+                                rejected.add(ids.get(i));
+                            }
+                        }
+                    }
+                }
+                if (!rejected.isEmpty()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(releaseSql)) {
+                        for (int productId : rejected) {
+                            for (long movementId : claimed.get(productId)) {
+                                stmt.setLong(1, movementId);
+                                stmt.addBatch();
+                            }
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        deltas.forEach(this::fireStockAdjusted);
+        return new StockCompaction(deltas, rejected, movementCount, lastMovementId);
+    }
+    
+    private static boolean productExists(Connection conn, int productId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM products WHERE id = ?")) {
+            stmt.setInt(1, productId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+    
+    /**
+     * Productos modificados (o creados) después de la posición {@code (after, afterId)},
+     * en orden de {@code updated_at} e ID
+     */
+    public List<ProductChange> getSavedSince(Instant after, int afterId, int limit) throws SQLException {
+        String sql = "SELECT * FROM products WHERE updated_at > ? OR (updated_at = ? AND id > ?) "
+                   + "ORDER BY updated_at, id LIMIT ?";
+        List<ProductChange> changes = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            Timestamp since = Timestamp.from(after);
+            stmt.setTimestamp(1, since);
+            stmt.setTimestamp(2, since);
+            stmt.setInt(3, afterId);
+            stmt.setInt(4, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Product product = mapRowOrSkip(rs);
+                    if (product != null) {
+                        changes.add(ProductChange.saved(product, rs.getTimestamp("updated_at").toInstant()));
+                    }
+                }
+            }
+        }
+        return changes;
+    }
+    
+    /**
+     * Productos eliminados después de la posición {@code (after, afterId)}, en orden de fecha e ID
+     */
+    public List<ProductChange> getDeletedSince(Instant after, int afterId, int limit) throws SQLException {
+        String sql = "SELECT product_id, deleted_at FROM product_tombstones "
+                   + "WHERE deleted_at > ? OR (deleted_at = ? AND product_id > ?) "
+                   + "ORDER BY deleted_at, product_id LIMIT ?";
+        List<ProductChange> changes = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            Timestamp since = Timestamp.from(after);
+            stmt.setTimestamp(1, since);
+            stmt.setTimestamp(2, since);
+            stmt.setInt(3, afterId);
+            stmt.setInt(4, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    changes.add(ProductChange.deleted(rs.getInt(1), rs.getTimestamp(2).toInstant()));
+                }
+            }
+        }
+        return changes;
+    }
+    
+    /**
+     * Borra las lápidas anteriores a la fecha indicada
+     * @return número de lápidas borradas
+     */
+    public int purgeTombstones(Instant before) throws SQLException {
+        String sql = "DELETE FROM product_tombstones WHERE deleted_at < ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setTimestamp(1, Timestamp.from(before));
+            return stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Hora actual del servidor de base de datos, la misma referencia que {@code updated_at}
+     */
+    public Instant getDatabaseTime() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT CURRENT_TIMESTAMP(3)")) {
+            rs.next();
+            return rs.getTimestamp(1).toInstant();
+        }
+    }
+    
+    /**
+     * Notifica a los listeners los cambios hechos por otros clientes, leídos con
+     * {@link #getSavedSince} y {@link #getDeletedSince}
+     */
+    public void publishExternalChanges(List<ProductChange> changes) {
+        for (ProductChange change : changes) {
+            if (change.isDeletion()) {
+                fireDeleted(change.getProductId());
+            } else {
+                fireSaved(change.getProduct());
+            }
+        }
+    }
+    
+    /**
+     * Lee solo el stock de un producto
+     * @return el stock, o {@code null} si el producto no existe
+     */
+    private Integer getStock(int productId) throws SQLException {
+        String sql = "SELECT stock FROM products WHERE id = ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, productId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+    
+    /**
+     * Inserta una lista de productos usando lotes JDBC y transacciones por bloques.
+     * Los productos que no pasan la validación se devuelven como fallidos sin
+     * interrumpir el resto del lote; los demás reciben el ID generado.
+     * @throws SQLException si falla un bloque (los bloques anteriores ya quedan confirmados)
+     */
+    public BatchResult addProducts(List<Product> products) throws SQLException {
+        BatchResult result = new BatchResult();
+        List<Product> valid = validateForBatch(products, result, new int[products.size()]);
+        resolveCategories(valid);
+        insertInChunks(valid, result);
+        return result;
+    }
+
+    /**
+     * Actualiza una lista de productos usando lotes JDBC y transacciones por bloques.
+     * Los productos leídos de la base de datos solo se escriben si nadie ha cambiado la
+     * fila desde entonces; los inválidos, inexistentes o modificados por otro cliente se
+     * devuelven como fallidos.
+     */
+    public BatchResult updateProducts(List<Product> products) throws SQLException {
+        BatchResult result = new BatchResult();
+        int[] originalIndex = new int[products.size()];
+        List<Product> valid = validateForBatch(products, result, originalIndex);
+        resolveCategories(valid);
+        updateInChunks(valid, originalIndex, result);
+        return result;
+    }
+
+    /**
+     * Inserta o actualiza una lista de productos. Los productos sin ID se insertan; los
+     * leídos de la base de datos se actualizan comprobando la versión, como en
+     * {@link #updateProducts}, y el resto se escribe con {@code INSERT ... ON DUPLICATE KEY UPDATE}.
+     */
+    public BatchResult upsertProducts(List<Product> products) throws SQLException {
+        BatchResult result = new BatchResult();
+        int[] originalIndex = new int[products.size()];
+        List<Product> valid = validateForBatch(products, result, originalIndex);
+        resolveCategories(valid);
+        
+        List<Product> newProducts = new ArrayList<>();
+        List<Product> versionedProducts = new ArrayList<>();
+        int[] versionedIndex = new int[valid.size()];
+        List<Product> existingProducts = new ArrayList<>();
+        for (int i = 0; i < valid.size(); i++) {
+            Product product = valid.get(i);
+            if (product.getId() <= 0) {
+                newProducts.add(product);
+            } else if (product.getVersion() != Product.NO_VERSION) {
+                versionedIndex[versionedProducts.size()] = originalIndex[i];
+                versionedProducts.add(product);
+            } else {
+                existingProducts.add(product);
+            }
+        }
+        insertInChunks(newProducts, result);
+        updateInChunks(versionedProducts, versionedIndex, result);
+        
+        String sql = "INSERT INTO products (id, name, price, stock, category_id, description) VALUES (?, ?, ?, ?, ?, ?) "
+                   + "ON DUPLICATE KEY UPDATE name = VALUES(name), price = VALUES(price), stock = VALUES(stock), "
+                   + "category_id = VALUES(category_id), description = VALUES(description), version = version + 1";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            
+            for (int start = 0; start < existingProducts.size(); start += BATCH_CHUNK_SIZE) {
+                int end = Math.min(start + BATCH_CHUNK_SIZE, existingProducts.size());
+                try {
+                    List<Product> chunk = existingProducts.subList(start, end);
+                    for (Product product : chunk) {
+                        stmt.setInt(1, product.getId());
+                        stmt.setString(2, product.getName());
+                        stmt.setDouble(3, product.getPrice());
+                        stmt.setInt(4, product.getStock());
+                        stmt.setInt(5, product.getCategoryId());
+                        stmt.setString(6, product.getDescription());
+                        stmt.addBatch();
+                    }
+                    Map<Integer, Integer> previousStock = lockStocks(conn, idsOf(chunk));
+                    stmt.executeBatch();
+                    conn.commit();
+                    result.addProcessed(end - start);
+                    for (Product product : chunk) {
+                        product.markClean();
+                        fireSaved(product);
+                        // Sin fila anterior, el upsert la ha insertado
+                        fireStockChanged(product, previousStock.getOrDefault(product.getId(), 0));
+                    }
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Escribe todas las columnas por bloques. Si el producto tiene versión, la fila solo
+     * se actualiza si sigue en esa versión, y tras confirmar el producto pasa a la nueva.
+     * {@code originalIndex[k]} es la posición original del k-ésimo producto.
+     */
+    private void updateInChunks(List<Product> products, int[] originalIndex, BatchResult result) throws SQLException {
+        if (products.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE products SET name = ?, price = ?, stock = ?, category_id = ?, description = ?, "
+                   + "version = version + 1 WHERE id = ? AND (? OR version = ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            
+            for (int start = 0; start < products.size(); start += BATCH_CHUNK_SIZE) {
+                List<Product> chunk = products.subList(start, Math.min(start + BATCH_CHUNK_SIZE, products.size()));
+                int[] counts;
+                Map<Integer, Integer> previousStock;
+                try {
+                    previousStock = lockStocks(conn, idsOf(chunk));
+                    for (Product product : chunk) {
+                        stmt.setString(1, product.getName());
+                        stmt.setDouble(2, product.getPrice());
+                        stmt.setInt(3, product.getStock());
+                        stmt.setInt(4, product.getCategoryId());
+                        stmt.setString(5, product.getDescription());
+                        stmt.setInt(6, product.getId());
+                        stmt.setBoolean(7, product.getVersion() == Product.NO_VERSION);
+                        stmt.setLong(8, product.getVersion());
+                        stmt.addBatch();
+                    }
+                    counts = stmt.executeBatch();
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+                
+                for (int i = 0; i < counts.length; i++) {
+                    Product product = chunk.get(i);
+                    if (counts[i] == 0) {
+                        // La fila se leyó y bloqueó en la misma transacción: si existía, cambió de versión
+                        result.addFailure(originalIndex[start + i], product,
+                            missingOrStale(product, previousStock.containsKey(product.getId())));
+                        continue;
+                    }
+                    if (product.getVersion() != Product.NO_VERSION) {
+                        product.setVersion(product.getVersion() + 1);
+                    }
+                    product.markClean();
+                    result.addProcessed(1);
+                    fireSaved(product);
+                    fireStockChanged(product, previousStock.get(product.getId()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Motivo por el que una actualización por lotes no ha tocado la fila del producto
+     */
+    private static String missingOrStale(Product product, boolean exists) {
+        if (product.getVersion() != Product.NO_VERSION && exists) {
+            return new StaleProductException(product.getId(), product.getVersion()).getMessage();
+        }
+        return "Producto no encontrado con ID: " + product.getId();
+    }
+
+    /**
+     * Valida cada producto y registra como fallidos los que no son válidos.
+     * {@code originalIndex[k]} recibe la posición original del k-ésimo producto válido.
+     */
+    private List<Product> validateForBatch(List<Product> products, BatchResult result, int[] originalIndex) {
+        List<Product> valid = new ArrayList<>(products.size());
+        ValidationResult validation = new ValidationResult();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            if (ProductValidator.check(product, validation)) {
+                originalIndex[valid.size()] = i;
+                valid.add(product);
+            } else {
+                result.addFailure(i, product, validation);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Registra las categorías nuevas antes de abrir la transacción del lote
+     */
+    private static void resolveCategories(List<Product> products) throws SQLException {
+        for (Product product : products) {
+            CategoryDictionary.resolve(product);
+        }
+    }
+
+    /**
+     * Inserta por bloques en una única conexión y asigna los IDs generados en orden
+     */
+    private void insertInChunks(List<Product> products, BatchResult result) throws SQLException {
+        if (products.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO products (name, price, stock, category_id, description) VALUES (?, ?, ?, ?, ?)";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            conn.setAutoCommit(false);
+            
+            for (int start = 0; start < products.size(); start += BATCH_CHUNK_SIZE) {
+                List<Product> chunk = products.subList(start, Math.min(start + BATCH_CHUNK_SIZE, products.size()));
+                try {
+                    for (Product product : chunk) {
+                        stmt.setString(1, product.getName());
+                        stmt.setDouble(2, product.getPrice());
+                        stmt.setInt(3, product.getStock());
+                        stmt.setInt(4, product.getCategoryId());
+                        stmt.setString(5, product.getDescription());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    
+                    // Con rewriteBatchedStatements las claves llegan todas juntas y en orden
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        for (Product product : chunk) {
+                            if (!generatedKeys.next()) {
+                                throw new SQLException("La creación del lote falló, no se obtuvieron todos los IDs.");
+                            }
+                            product.setId(generatedKeys.getInt(1));
+                        }
+                    }
+                    conn.commit();
+                    result.addProcessed(chunk.size());
+                    for (Product product : chunk) {
+                        fireSaved(product);
+                        fireStockChanged(product, 0);
+                    }
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Crea un producto a partir de la fila actual del ResultSet
+     */
+    private Product mapRow(ResultSet rs) throws SQLException, InvalidProductException {
+        int categoryId = rs.getInt("category_id");
+        CategoryDictionary.lookup(categoryId);
+        Product product = new Product(
+            rs.getInt("id"),
+            rs.getString("name"),
+            rs.getDouble("price"),
+            rs.getInt("stock"),
+            categoryId,
+            rs.getString("description")
+        );
+        product.setVersion(rs.getLong("version"));
+        product.markClean();
+        return product;
+    }
+
+    /**
+     * Igual que {@link #mapRow(ResultSet)}, pero ignora las filas con datos inválidos
+     */
+    private Product mapRowOrSkip(ResultSet rs) throws SQLException {
+        try {
+            return mapRow(rs);
+        } catch (InvalidProductException e) {
+            // Registrar el error pero continuar con los demás productos
+            System.err.println("Producto inválido ignorado (ID: " + rs.getInt("id") + "): " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Crea una sentencia de solo lectura que recibe las filas a medida que se leen.
+     * Con MySQL un fetch size de {@code Integer.MIN_VALUE} activa el streaming fila a fila.
+     */
+    private Statement createStreamingStatement(Connection conn) throws SQLException {
+        Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(isMySQL(conn) ? Integer.MIN_VALUE : STREAMING_FETCH_SIZE);
+        return stmt;
+    }
+
+    private static boolean isMySQL(Connection conn) throws SQLException {
+        return conn.getMetaData().getURL().startsWith("jdbc:mysql:");
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (Exception e) {
+            // Se ignora: el recurso ya no se va a utilizar
+        }
+    }
+
+    /**
+     * Añade a la consulta las condiciones del filtro y sus parámetros
+     */
+    private static void appendWhere(StringBuilder sql, List<Object> params, ProductFilter filter,
+                                    boolean includeKeyset) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.getCategory() != null) {
+            // Una categoría que no existe da el ID 0, que no tiene ningún producto
+            conditions.add("category_id = ?");
+            params.add(filter.getCategoryId());
+        }
+        if (filter.getMinStock() != null) {
+            conditions.add("stock >= ?");
+            params.add(filter.getMinStock());
+        }
+        if (filter.getMaxStock() != null) {
+            conditions.add("stock <= ?");
+            params.add(filter.getMaxStock());
+        }
+        if (filter.getMinPrice() != null) {
+            conditions.add("price >= ?");
+            params.add(filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            conditions.add("price <= ?");
+            params.add(filter.getMaxPrice());
+        }
+        if (includeKeyset && filter.getAfterId() > 0) {
+            conditions.add("id > ?");
+            params.add(filter.getAfterId());
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+    }
+
+    private static void bindParameters(PreparedStatement stmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            stmt.setObject(i + 1, params.get(i));
+        }
+    }
+
+    private void fireSaved(Product product) {
+        for (ProductChangeListener listener : changeListeners) {
+            listener.productSaved(product);
+        }
+    }
+
+    /**
+     * Avisa del cambio de stock de un producto recién guardado si el stock anterior, leído en
+     * la misma transacción (0 si la fila es nueva), era distinto. Así el diario de movimientos
+     * recoge también los cambios absolutos y el stock inicial.
+     */
+    private void fireStockChanged(Product product, Integer previous) {
+        if (previous == null || previous == product.getStock()) {
+            return;
+        }
+        for (ProductChangeListener listener : changeListeners) {
+            listener.stockSet(product.getId(), previous, product.getStock());
+        }
+    }
+
+    private static List<Integer> idsOf(List<Product> products) {
+        List<Integer> ids = new ArrayList<>(products.size());
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Lee y bloquea hasta el final de la transacción el stock de los productos indicados
+     * @return stock por ID; los productos que no existen no aparecen
+     */
+    private static Map<Integer, Integer> lockStocks(Connection conn, Collection<Integer> ids) throws SQLException {
+        Map<Integer, Integer> stocks = new HashMap<>();
+        if (ids.isEmpty()) {
+            return stocks;
+        }
+        StringBuilder sql = new StringBuilder("SELECT id, stock FROM products WHERE id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") FOR UPDATE");
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (int id : ids) {
+                stmt.setInt(index++, id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    stocks.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        }
+        return stocks;
+    }
+
+    private void fireStockAdjusted(int productId, int delta) {
+        for (ProductChangeListener listener : changeListeners) {
+            listener.stockAdjusted(productId, delta);
+        }
+    }
+
+    private void fireDeleted(int productId) {
+        for (ProductChangeListener listener : changeListeners) {
+            listener.productDeleted(productId);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+package com.store;
+
+/**
+ * Criterios de búsqueda de productos que se resuelven en SQL.
+ * Los criterios sin valor ({@code null}) no se aplican.
+ */
+public class ProductFilter {
+    private String category;
+    private int categoryId;
+    private Integer minStock;
+    private Integer maxStock;
+    private Double minPrice;
+    private Double maxPrice;
+    private int afterId;
+    private int offset;
+    private int limit;
+
+    public String getCategory() {
+        return category;
+    }
+
+    public ProductFilter setCategory(String category) {
+        this.category = category;
+        this.categoryId = CategoryDictionary.idOf(category);
+        return this;
+    }
+
+    /**
+     * ID de la categoría del filtro; {@link CategoryDictionary#UNKNOWN} si no hay filtro por
+     * categoría o si la categoría no existe (y entonces no hay productos que lo cumplan)
+     */
+    public int getCategoryId() {
+        if (category != null && categoryId == CategoryDictionary.UNKNOWN) {
+            // Puede haberse registrado después de crear el filtro
+            categoryId = CategoryDictionary.idOf(category);
+        }
+        return categoryId;
+    }
+
+    public Integer getMinStock() {
+        return minStock;
+    }
+
+    /**
+     * Stock mínimo (incluido)
+     */
+    public ProductFilter setMinStock(Integer minStock) {
+        this.minStock = minStock;
+        return this;
+    }
+
+    public Integer getMaxStock() {
+        return maxStock;
+    }
+
+    /**
+     * Stock máximo (incluido)
+     */
+    public ProductFilter setMaxStock(Integer maxStock) {
+        this.maxStock = maxStock;
+        return this;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    /**
+     * Precio mínimo (incluido)
+     */
+    public ProductFilter setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+        return this;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * Precio máximo (incluido)
+     */
+    public ProductFilter setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+        return this;
+    }
+
+    public int getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * Paginación por clave: solo productos con ID mayor que este (0 para no aplicar)
+     */
+    public ProductFilter setAfterId(int afterId) {
+        this.afterId = afterId;
+        return this;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Paginación por posición; preferir {@link #setAfterId(int)} en recorridos largos
+     */
+    public ProductFilter setOffset(int offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Número máximo de filas (0 para no limitar)
+     */
+    public ProductFilter setLimit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Comprueba en memoria si un producto cumple los criterios (sin tener en cuenta la paginación)
+     */
+    public boolean matches(Product product) {
+        int wantedCategory = getCategoryId();
+        return (category == null || (wantedCategory != CategoryDictionary.UNKNOWN
+                && wantedCategory == product.getCategoryId()))
+            && (minStock == null || product.getStock() >= minStock)
+            && (maxStock == null || product.getStock() <= maxStock)
+            && (minPrice == null || product.getPrice() >= minPrice)
+            && (maxPrice == null || product.getPrice() <= maxPrice);
+    }
+
+    /**
+     * Copia de los criterios, para variar la paginación sin modificar el original
+     */
+    public ProductFilter copy() {
+        ProductFilter copy = new ProductFilter();
+        copy.category = category;
+        copy.categoryId = categoryId;
+        copy.minStock = minStock;
+        copy.maxStock = maxStock;
+        copy.minPrice = minPrice;
+        copy.maxPrice = maxPrice;
+        copy.afterId = afterId;
+        copy.offset = offset;
+        copy.limit = limit;
+        return copy;
+    }
+}
@@ -0,0 +1,166 @@
+package com.store;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Origen de datos paginado para {@link ProductTableModel}.
+ * Las implementaciones se invocan desde un hilo de fondo, nunca desde el EDT.
+ */
+public interface ProductPageSource {
+
+    /**
+     * Número total de filas del origen
+     */
+    int count() throws SQLException;
+
+    /**
+     * Carga {@code limit} filas a partir de la posición {@code offset}
+     */
+    List<Product> loadPage(int offset, int limit) throws SQLException;
+
+    /**
+     * Carga {@code limit} filas que siguen al producto con ID {@code afterId}.
+     * Se usa cuando la página anterior ya está en memoria y evita el coste de OFFSET.
+     */
+    default List<Product> loadPageAfter(int afterId, int offset, int limit) throws SQLException {
+        return loadPage(offset, limit);
+    }
+
+    /**
+     * Indica si un producto recién escrito pertenece a este origen. Los productos nuevos
+     * que pertenecen se añaden al final, ya que los IDs autoincrementales siempre crecen.
+     */
+    default boolean accepts(Product product) {
+        return true;
+    }
+
+    /**
+     * Notifica que se ha insertado una fila. Los orígenes respaldados por la base de datos
+     * no necesitan hacer nada; los que guardan sus filas en memoria deben reflejar el cambio.
+     * Como las cargas, estos avisos llegan en el hilo de fondo y en el orden en que se pidieron.
+     */
+    default void rowInserted(int row, Product product) {
+    }
+
+    /**
+     * Notifica que se ha reemplazado el contenido de una fila
+     */
+    default void rowUpdated(int row, Product product) {
+    }
+
+    /**
+     * Notifica que se ha eliminado una fila
+     */
+    default void rowRemoved(int row) {
+    }
+
+    /**
+     * Todos los productos de la base de datos, en orden de ID
+     */
+    static ProductPageSource allProducts(ProductRepository dao) {
+        return new ProductPageSource() {
+            @Override
+            public int count() throws SQLException {
+                return dao.countProducts();
+            }
+
+            @Override
+            public List<Product> loadPage(int offset, int limit) throws SQLException {
+                return dao.getProductsPage(offset, limit);
+            }
+
+            @Override
+            public List<Product> loadPageAfter(int afterId, int offset, int limit) throws SQLException {
+                return dao.getProductsAfter(afterId, limit);
+            }
+        };
+    }
+
+    /**
+     * Productos que cumplen un filtro, paginados en la base de datos
+     */
+    static ProductPageSource forFilter(ProductRepository dao, ProductFilter filter) {
+        return new ProductPageSource() {
+            @Override
+            public int count() throws SQLException {
+                return dao.countProducts(filter);
+            }
+
+            @Override
+            public List<Product> loadPage(int offset, int limit) throws SQLException {
+                return dao.findByFilter(filter.copy().setOffset(offset).setLimit(limit));
+            }
+
+            @Override
+            public List<Product> loadPageAfter(int afterId, int offset, int limit) throws SQLException {
+                return dao.findByFilter(filter.copy().setAfterId(afterId).setLimit(limit));
+            }
+
+            @Override
+            public boolean accepts(Product product) {
+                return filter.matches(product);
+            }
+        };
+    }
+
+    /**
+     * Una lista ya cargada en memoria (por ejemplo, resultados de búsqueda) que no
+     * admite productos nuevos
+     */
+    static ProductPageSource fromList(List<Product> products) {
+        return fromList(products, product -> false);
+    }
+
+    /**
+     * Una lista ya cargada en memoria; los productos nuevos que cumplen el criterio se añaden al final.
+     * Cada cambio publica una copia nueva de la lista, así que una página que se está cargando
+     * en el hilo de fondo lee una versión completa, anterior o posterior al cambio.
+     */
+    static ProductPageSource fromList(List<Product> initialProducts, Predicate<Product> criteria) {
+        return new ProductPageSource() {
+            private volatile List<Product> products = Collections.unmodifiableList(new ArrayList<>(initialProducts));
+
+            @Override
+            public int count() {
+                return products.size();
+            }
+
+            @Override
+            public List<Product> loadPage(int offset, int limit) {
+                List<Product> snapshot = products;
+                int from = Math.min(offset, snapshot.size());
+                return new ArrayList<>(snapshot.subList(from, Math.min(from + limit, snapshot.size())));
+            }
+
+            @Override
+            public boolean accepts(Product product) {
+                return criteria.test(product);
+            }
+
+            @Override
+            public void rowInserted(int row, Product product) {
+                List<Product> copy = new ArrayList<>(products);
+                copy.add(row, product);
+                products = Collections.unmodifiableList(copy);
+            }
+
+            @Override
+            public void rowUpdated(int row, Product product) {
+                List<Product> copy = new ArrayList<>(products);
+                copy.set(row, product);
+                products = Collections.unmodifiableList(copy);
+            }
+
+            @Override
+            public void rowRemoved(int row) {
+                List<Product> copy = new ArrayList<>(products);
+                copy.remove(row);
+                products = Collections.unmodifiableList(copy);
+            }
+        };
+    }
+}
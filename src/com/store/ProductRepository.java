@@ -0,0 +1,123 @@
+package com.store;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Almacén de productos. {@link ProductDAO} lo implementa sobre MySQL y
+ * {@link MappedProductStore} sobre un fichero local, para trabajar sin conexión.
+ *
+ * Todas las implementaciones notifican las escrituras confirmadas a los
+ * {@link ProductChangeListener} registrados y señalan los errores de acceso con
+ * {@link SQLException}.
+ */
+public interface ProductRepository {
+
+    /**
+     * Recibe las columnas numéricas de una fila sin crear un {@link Product}; la categoría
+     * llega como su ID en {@link CategoryDictionary}
+     */
+    interface StockRowConsumer {
+        void accept(int id, double price, int stock, int categoryId);
+    }
+
+    void addChangeListener(ProductChangeListener listener);
+
+    void removeChangeListener(ProductChangeListener listener);
+
+    /**
+     * Añade un producto con validación y le asigna su ID
+     */
+    Product addProduct(Product product) throws SQLException, InvalidProductException;
+
+    /**
+     * Obtiene un producto por su ID, o {@code null} si no existe
+     */
+    Product getProductById(int id) throws SQLException;
+
+    List<Product> getAllProducts() throws SQLException;
+
+    /**
+     * Recorre todos los productos en orden de ID
+     */
+    void forEachProduct(Consumer<Product> action) throws SQLException;
+
+    /**
+     * Stream perezoso de todos los productos en orden de ID; debe cerrarse
+     */
+    Stream<Product> streamAllProducts() throws SQLException;
+
+    /**
+     * Página de productos con ID mayor que {@code afterId}, en orden de ID
+     */
+    List<Product> getProductsAfter(int afterId, int limit) throws SQLException;
+
+    /**
+     * Página de productos por posición, en orden de ID
+     */
+    List<Product> getProductsPage(int offset, int limit) throws SQLException;
+
+    int countProducts() throws SQLException;
+
+    List<Product> findByCategory(String category) throws SQLException;
+
+    /**
+     * Productos que cumplen el filtro, en orden de ID y con su paginación
+     */
+    List<Product> findByFilter(ProductFilter filter) throws SQLException;
+
+    /**
+     * Productos que cumplen el filtro, sin tener en cuenta la paginación
+     */
+    int countProducts(ProductFilter filter) throws SQLException;
+
+    /**
+     * Número de productos, productos con stock bajo y valor total por categoría
+     */
+    Map<String, InventoryStats> getStatsByCategory(int lowStockThreshold) throws SQLException;
+
+    /**
+     * Recorre el id, precio, stock e ID de categoría de todos los productos en orden de ID
+     */
+    void forEachStockRow(StockRowConsumer action) throws SQLException;
+
+    /**
+     * Guarda los cambios de un producto
+     * @throws StaleProductException si el almacén controla versiones y el producto ha cambiado desde que se leyó
+     */
+    boolean updateProduct(Product product) throws SQLException, InvalidProductException;
+
+    boolean deleteProduct(int id) throws SQLException;
+
+    /**
+     * Fija el stock de un producto
+     */
+    boolean updateStock(int productId, int newStock) throws SQLException, InvalidProductException;
+
+    /**
+     * Suma una cantidad al stock
+     * @throws InvalidProductException si el stock quedaría en negativo
+     */
+    boolean addToStock(int productId, int quantity) throws SQLException, InvalidProductException;
+
+    /**
+     * Aplica un cambio de stock solo si el resultado no es negativo
+     * @return {@code false} si el producto no existe o no hay stock suficiente
+     */
+    boolean tryAdjustStock(int productId, int delta) throws SQLException;
+
+    /**
+     * Aplica varios cambios de stock a la vez, todo o nada
+     * @return IDs de los productos rechazados; vacía si se aplicaron todos
+     */
+    List<Integer> adjustStocks(List<StockAdjustment> adjustments) throws SQLException;
+
+    BatchResult addProducts(List<Product> products) throws SQLException;
+
+    BatchResult updateProducts(List<Product> products) throws SQLException;
+
+    BatchResult upsertProducts(List<Product> products) throws SQLException;
+}
@@ -0,0 +1,388 @@
+package com.store;
+
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Índice invertido de trigramas en memoria sobre el nombre y la descripción de los productos.
+ *
+ * El texto se normaliza (minúsculas, sin acentos ni signos de puntuación) y se indexa por
+ * trigramas, de modo que una búsqueda por subcadena solo comprueba los productos que
+ * contienen todos los trigramas de la consulta. Se mantiene al día escuchando las
+ * escrituras del {@link ProductRepository}.
+ */
+public class ProductSearchIndex implements ProductChangeListener {
+
+    // Puntuaciones por tipo de coincidencia, de mejor a peor
+    private static final int SCORE_NAME_EXACT = 100;
+    private static final int SCORE_NAME_PREFIX = 80;
+    private static final int SCORE_NAME_WORD_PREFIX = 60;
+    private static final int SCORE_NAME_CONTAINS = 40;
+    private static final int SCORE_DESCRIPTION_WORD_PREFIX = 20;
+    private static final int SCORE_DESCRIPTION_CONTAINS = 10;
+
+    /** Pasadas para releer los productos cambiados durante la carga antes de publicar el índice */
+    private static final int MAX_CATCH_UP_ROUNDS = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Integer, Document> documents = new HashMap<>();
+    private Map<Long, BitSet> postings = new HashMap<>();
+    private volatile boolean ready;
+    // Mientras se carga, las escrituras solo anotan el ID y luego se relee el producto
+    private boolean loading;
+    private final Set<Integer> changedWhileLoading = new HashSet<>();
+
+    /**
+     * Construye el índice recorriendo todos los productos en streaming.
+     *
+     * El recorrido se hace sin el cerrojo, sobre tablas nuevas, para no bloquear a las
+     * escrituras (que avisan al índice con la conexión todavía abierta). Los productos que
+     * cambian mientras tanto se releen y el índice nuevo se publica al final.
+     */
+    public void load(ProductRepository dao) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            loading = true;
+            changedWhileLoading.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Integer, Document> newDocuments = new HashMap<>();
+        Map<Long, BitSet> newPostings = new HashMap<>();
+        List<Integer> pending = new ArrayList<>();
+        try {
+            dao.forEachProduct(product -> addDocument(newDocuments, newPostings, product));
+            for (int round = 0; ; round++) {
+                pending.clear();
+                lock.writeLock().lock();
+                try {
+                    pending.addAll(changedWhileLoading);
+                    changedWhileLoading.clear();
+                    if (pending.isEmpty() || round == MAX_CATCH_UP_ROUNDS) {
+                        documents = newDocuments;
+                        postings = newPostings;
+                        loading = false;
+                        ready = true;
+                        break;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                for (int id : pending) {
+                    removeDocument(newDocuments, newPostings, id);
+                    Product product = dao.getProductById(id);
+                    if (product != null) {
+                        addDocument(newDocuments, newPostings, product);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                loading = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Si siguen llegando cambios, los últimos se releen ya sobre el índice publicado
+        for (int id : pending) {
+            Product product = dao.getProductById(id);
+            if (product != null) {
+                productSaved(product);
+            } else {
+                productDeleted(id);
+            }
+        }
+    }
+
+    /**
+     * Indica si el índice ya se ha construido
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void productSaved(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                changedWhileLoading.add(product.getId());
+                return;
+            }
+            removeDocument(documents, postings, product.getId());
+            // Copia: el producto del llamador puede seguir cambiando
+            addDocument(documents, postings, new Product(product));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void productDeleted(int productId) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                changedWhileLoading.add(productId);
+                return;
+            }
+            removeDocument(documents, postings, productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void stockAdjusted(int productId, int delta) {
+        updateStock(productId, stock -> stock + delta);
+    }
+
+    @Override
+    public void stockSet(int productId, int newStock) {
+        updateStock(productId, stock -> newStock);
+    }
+
+    /**
+     * Sustituye el producto guardado por una copia con el stock nuevo, sin tocar el producto
+     * que ya se haya devuelto en una búsqueda. El texto no cambia, así que los trigramas sirven.
+     */
+    private void updateStock(int productId, IntUnaryOperator update) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                changedWhileLoading.add(productId);
+                return;
+            }
+            Document doc = documents.get(productId);
+            if (doc == null) {
+                return;
+            }
+            Product updated = new Product(doc.product);
+            try {
+                updated.setStock(update.applyAsInt(doc.product.getStock()));
+            } catch (InvalidProductException e) {
+                // El repositorio no deja el stock en negativo; si llegara, se conserva el anterior
+                return;
+            }
+            updated.markClean();
+            documents.put(productId, new Document(updated, doc.name, doc.description));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca productos cuyo nombre o descripción contiene el texto, sin distinguir
+     * mayúsculas ni acentos. Los resultados se ordenan por calidad de la coincidencia:
+     * nombre exacto, nombre que empieza por el texto, palabra del nombre que empieza
+     * por el texto, y así sucesivamente hasta coincidencias en la descripción.
+     */
+    public List<Product> search(String text) {
+        String query = fold(text);
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            BitSet candidates = findCandidates(query);
+            for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                Document doc = documents.get(id);
+                int score = doc == null ? 0 : score(doc, query);
+                if (score > 0) {
+                    matches.add(new Match(doc.product, score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.comparingInt((Match m) -> -m.score)
+            .thenComparingInt(m -> m.product.getName().length())
+            .thenComparingInt(m -> m.product.getId()));
+        List<Product> results = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            results.add(match.product);
+        }
+        return results;
+    }
+
+    /**
+     * Productos que contienen todos los trigramas de la consulta (superconjunto de los resultados)
+     */
+    private BitSet findCandidates(String query) {
+        if (query.length() < 3) {
+            // Consultas cortas: unir las listas de todos los trigramas que contienen la consulta
+            BitSet union = new BitSet();
+            for (Map.Entry<Long, BitSet> entry : postings.entrySet()) {
+                if (decode(entry.getKey()).contains(query)) {
+                    union.or(entry.getValue());
+                }
+            }
+            return union;
+        }
+
+        BitSet result = null;
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            BitSet posting = postings.get(trigram(query, i));
+            if (posting == null) {
+                return new BitSet();
+            }
+            if (result == null) {
+                result = (BitSet) posting.clone();
+            } else {
+                result.and(posting);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static int score(Document doc, String query) {
+        String name = doc.name;
+        if (name.equals(query)) {
+            return SCORE_NAME_EXACT;
+        }
+        if (name.startsWith(query)) {
+            return SCORE_NAME_PREFIX;
+        }
+        if (name.contains(" " + query)) {
+            return SCORE_NAME_WORD_PREFIX;
+        }
+        if (name.contains(query)) {
+            return SCORE_NAME_CONTAINS;
+        }
+        String description = doc.description;
+        if (description.startsWith(query) || description.contains(" " + query)) {
+            return SCORE_DESCRIPTION_WORD_PREFIX;
+        }
+        if (description.contains(query)) {
+            return SCORE_DESCRIPTION_CONTAINS;
+        }
+        return 0;
+    }
+
+    private static void addDocument(Map<Integer, Document> documents, Map<Long, BitSet> postings,
+                                    Product product) {
+        Document doc = new Document(product, fold(product.getName()), fold(product.getDescription()));
+        documents.put(product.getId(), doc);
+        forEachTrigram(doc, key -> postings.computeIfAbsent(key, k -> new BitSet()).set(product.getId()));
+    }
+
+    private static void removeDocument(Map<Integer, Document> documents, Map<Long, BitSet> postings,
+                                       int productId) {
+        Document doc = documents.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        forEachTrigram(doc, key -> {
+            BitSet posting = postings.get(key);
+            if (posting != null) {
+                posting.clear(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        });
+    }
+
+    private interface TrigramConsumer {
+        void accept(long trigram);
+    }
+
+    private static void forEachTrigram(Document doc, TrigramConsumer consumer) {
+        // Los espacios de los extremos permiten que los prefijos de palabra tengan trigramas propios
+        for (String text : new String[]{" " + doc.name + " ", " " + doc.description + " "}) {
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                consumer.accept(trigram(text, i));
+            }
+        }
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    private static String decode(long trigram) {
+        return new String(new char[]{(char) (trigram >>> 32), (char) (trigram >>> 16), (char) trigram});
+    }
+
+    /**
+     * Normaliza un texto: minúsculas, sin acentos y con los separadores reducidos a un espacio
+     */
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue; // Acentos y diéresis separados por la normalización
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && folded.length() > 0) {
+                    folded.append(' ');
+                }
+                pendingSpace = false;
+                folded.append(Character.toLowerCase(c));
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Texto normalizado de un producto indexado
+     */
+    private static class Document {
+        final Product product;
+        final String name;
+        final String description;
+
+        Document(Product product, String name, String description) {
+            this.product = product;
+            this.name = name;
+            this.description = description;
+        }
+    }
+
+    private static class Match {
+        final Product product;
+        final int score;
+
+        Match(Product product, int score) {
+            this.product = product;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.store;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Modelo de tabla virtual: solo mantiene en memoria las páginas visibles
+ * (y unas pocas más en una caché LRU) y las pide al origen de datos bajo demanda.
+ *
+ * Todos los métodos públicos deben llamarse desde el EDT.
+ */
+public class ProductTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMN_NAMES = {"ID", "Nombre", "Precio (€)", "Stock", "Categoría", "Descripción"};
+
+    /** Filas por página */
+    static final int PAGE_SIZE = 200;
+    /** Páginas que se conservan en memoria */
+    private static final int MAX_CACHED_PAGES = 50;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "product-page-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<Integer, Product[]> pages = new LinkedHashMap<Integer, Product[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Product[]> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private final Set<Integer> pendingPages = new HashSet<>();
+
+    private ProductPageSource source;
+    private int rowCount;
+    private int generation;
+    private int lastRequestedPage;
+    private boolean countPending;
+    private ErrorHandler errorHandler = e -> System.err.println("Error al cargar productos: " + e.getMessage());
+
+    /**
+     * Recibe los errores producidos al cargar datos en segundo plano (en el EDT)
+     */
+    public interface ErrorHandler {
+        void onError(SQLException e);
+    }
+
+    public void setErrorHandler(ErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Cambia el origen de datos. El número de filas se obtiene en segundo plano
+     * y las páginas se cargan a medida que la tabla las muestra.
+     */
+    public void setSource(ProductPageSource newSource) {
+        source = newSource;
+        generation++;
+        pages.clear();
+        pendingPages.clear();
+        lastRequestedPage = 0;
+        rowCount = 0;
+        countPending = true;
+        fireTableDataChanged();
+
+        int expectedGeneration = generation;
+        loader.execute(() -> {
+            try {
+                int count = newSource.count();
+                SwingUtilities.invokeLater(() -> {
+                    if (expectedGeneration == generation) {
+                        rowCount = count;
+                        countPending = false;
+                        fireTableDataChanged();
+                    }
+                });
+            } catch (SQLException e) {
+                reportError(e, expectedGeneration);
+            }
+        });
+    }
+
+    /**
+     * Vuelve a cargar el origen de datos actual
+     */
+    public void refresh() {
+        if (source != null) {
+            setSource(source);
+        }
+    }
+
+    /**
+     * Devuelve el producto de una fila, o {@code null} si su página aún no está cargada
+     */
+    public Product getProductAt(int row) {
+        if (row < 0 || row >= rowCount) {
+            return null;
+        }
+        Product[] page = pages.get(row / PAGE_SIZE);
+        Product product = page == null ? null : page[row % PAGE_SIZE];
+        if (product == null) {
+            // Página sin cargar o con huecos tras una eliminación
+            requestPage(row / PAGE_SIZE);
+        }
+        return product;
+    }
+
+    /**
+     * Añade un producto recién creado al final de la vista si pertenece al origen actual
+     * @return si el producto se ha añadido
+     */
+    public boolean productInserted(Product product) {
+        if (source == null || !source.accepts(product)) {
+            return false;
+        }
+        if (countPending) {
+            refresh(); // Aún no se conoce el número de filas: el recuento ya incluirá el nuevo
+            return true;
+        }
+        int row = rowCount;
+        ProductPageSource target = source;
+        onLoader(() -> target.rowInserted(row, product));
+        invalidatePendingLoads();
+        rowCount++;
+
+        Product[] page = pages.get(row / PAGE_SIZE);
+        if (page != null) {
+            page[row % PAGE_SIZE] = product;
+        }
+        fireTableRowsInserted(row, row);
+        return true;
+    }
+
+    /**
+     * Reemplaza la fila de un producto modificado, o la elimina si ya no pertenece al origen
+     * @param row fila en la que estaba el producto
+     * @return si el producto sigue visible
+     */
+    public boolean productUpdated(int row, Product product) {
+        row = resolveRow(row, product.getId());
+        if (row < 0) {
+            return false;
+        }
+        // Deja de mostrarse si antes cumplía el criterio del origen y ahora no
+        // (los resultados de búsqueda no tienen criterio y conservan sus filas)
+        Product current = getLoadedProduct(row);
+        if (current != null && source.accepts(current) && !source.accepts(product)) {
+            productRemoved(row);
+            return false;
+        }
+        int updatedRow = row;
+        ProductPageSource target = source;
+        onLoader(() -> target.rowUpdated(updatedRow, product));
+        Product[] page = pages.get(row / PAGE_SIZE);
+        if (page != null) {
+            page[row % PAGE_SIZE] = product;
+        }
+        fireTableRowsUpdated(row, row);
+        return true;
+    }
+
+    /**
+     * Elimina una fila desplazando las páginas en memoria, sin recargar la tabla
+     */
+    public void productRemoved(int row) {
+        if (row < 0 || row >= rowCount) {
+            return;
+        }
+        if (countPending) {
+            refresh();
+            return;
+        }
+        ProductPageSource target = source;
+        onLoader(() -> target.rowRemoved(row));
+        invalidatePendingLoads();
+        rowCount--;
+
+        int pageIndex = row / PAGE_SIZE;
+        int offset = row % PAGE_SIZE;
+        Product[] page = pages.get(pageIndex);
+        while (page != null) {
+            System.arraycopy(page, offset + 1, page, offset, PAGE_SIZE - offset - 1);
+            Product[] next = pages.get(pageIndex + 1);
+            // El primer elemento de la página siguiente pasa a ser el último de esta;
+            // si la siguiente no está en memoria queda un hueco que se recarga al pintarse
+            page[PAGE_SIZE - 1] = next != null ? next[0] : null;
+            if (next == null) {
+                dropPagesAfter(pageIndex);
+            }
+            pageIndex++;
+            offset = 0;
+            page = next;
+        }
+        if (pages.get(pageIndex) == null) {
+            dropPagesAfter(pageIndex);
+        }
+        fireTableRowsDeleted(row, row);
+    }
+
+    /**
+     * Busca la fila de un producto entre las páginas en memoria
+     * @return la fila, o -1 si no está cargada
+     */
+    public int findRow(int productId) {
+        for (Map.Entry<Integer, Product[]> entry : pages.entrySet()) {
+            Product[] page = entry.getValue();
+            for (int i = 0; i < page.length; i++) {
+                if (page[i] != null && page[i].getId() == productId) {
+                    return entry.getKey() * PAGE_SIZE + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // Hacer la tabla no editable directamente
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Product product = getProductAt(row);
+        if (product == null) {
+            return null;
+        }
+        switch (column) {
+            case 0: return product.getId();
+            case 1: return product.getName();
+            case 2: return product.getPrice(); // El formato lo aplica el renderer, solo a las celdas visibles
+            case 3: return product.getStock();
+            case 4: return product.getCategory();
+            case 5: return product.getDescription();
+            default: return null;
+        }
+    }
+
+    /**
+     * Comprueba que la fila indicada corresponde al producto y, si no, la busca en memoria
+     * @return la fila del producto, o -1 si no está cargada
+     */
+    public int resolveRow(int row, int productId) {
+        Product current = row >= 0 && row < rowCount ? getLoadedProduct(row) : null;
+        if (current != null && current.getId() == productId) {
+            return row;
+        }
+        return findRow(productId);
+    }
+
+    private Product getLoadedProduct(int row) {
+        Product[] page = pages.get(row / PAGE_SIZE);
+        return page == null ? null : page[row % PAGE_SIZE];
+    }
+
+    /**
+     * Avisa al origen en el hilo de carga, en orden con las páginas pedidas, como el resto de
+     * llamadas al origen: así una carga nunca ve la lista a medio cambiar
+     */
+    private void onLoader(Runnable notification) {
+        loader.execute(notification);
+    }
+
+    /**
+     * Las cargas en curso se calcularon con las posiciones anteriores al cambio
+     */
+    private void invalidatePendingLoads() {
+        generation++;
+        pendingPages.clear();
+    }
+
+    private void dropPagesAfter(int pageIndex) {
+        pages.keySet().removeIf(index -> index > pageIndex);
+    }
+
+    private void requestPage(int pageIndex) {
+        int direction = pageIndex >= lastRequestedPage ? 1 : -1;
+        lastRequestedPage = pageIndex;
+        loadPage(pageIndex);
+
+        // Precargar la siguiente página en el sentido del desplazamiento
+        int next = pageIndex + direction;
+        if (next >= 0 && next * PAGE_SIZE < rowCount && !pages.containsKey(next)) {
+            loadPage(next);
+        }
+    }
+
+    private void loadPage(int pageIndex) {
+        if (!pendingPages.add(pageIndex)) {
+            return;
+        }
+        ProductPageSource currentSource = source;
+        int expectedGeneration = generation;
+        int offset = pageIndex * PAGE_SIZE;
+
+        // Si la página anterior está en memoria se puede continuar por clave en lugar de OFFSET
+        Product[] previous = pageIndex > 0 ? pages.get(pageIndex - 1) : null;
+        int afterId = previous != null && previous[PAGE_SIZE - 1] != null ? previous[PAGE_SIZE - 1].getId() : -1;
+
+        loader.execute(() -> {
+            try {
+                List<Product> products = afterId >= 0
+                        ? currentSource.loadPageAfter(afterId, offset, PAGE_SIZE)
+                        : currentSource.loadPage(offset, PAGE_SIZE);
+                Product[] page = products.toArray(new Product[PAGE_SIZE]);
+                SwingUtilities.invokeLater(() -> {
+                    if (expectedGeneration != generation) {
+                        return;
+                    }
+                    pendingPages.remove(pageIndex);
+                    pages.put(pageIndex, page);
+                    int lastRow = Math.min(offset + PAGE_SIZE, rowCount) - 1;
+                    if (lastRow >= offset) {
+                        fireTableRowsUpdated(offset, lastRow);
+                    }
+                });
+            } catch (SQLException e) {
+                // La página queda marcada como pendiente para no reintentar en cada repintado;
+                // refresh() la vuelve a pedir
+                reportError(e, expectedGeneration);
+            }
+        });
+    }
+
+    private void reportError(SQLException e, int expectedGeneration) {
+        SwingUtilities.invokeLater(() -> {
+            if (expectedGeneration == generation) {
+                errorHandler.onError(e);
+            }
+        });
+    }
+}
@@ -1,15 +1,44 @@
 package com.store;
 
 /**
- * Clase para validar los datos de un producto
+ * Clase para validar los datos de un producto.
+ *
+ * Los métodos {@code check} anotan los errores en un {@link ValidationResult} reutilizable
+ * sin lanzar excepciones ni reservar memoria, y revisan todos los campos de una vez; son los
+ * adecuados para importaciones con muchas filas erróneas. Los métodos {@code validate*}
+ * lanzan {@link InvalidProductException} con el primer error.
  */
 public class ProductValidator {
-    
+
     private static final double MIN_PRICE = 0.0;
     private static final int MIN_STOCK = 0;
-    private static final int MAX_NAME_LENGTH = 100;
-    private static final int MAX_DESCRIPTION_LENGTH = 500;
-    
+    static final int MAX_NAME_LENGTH = 100;
+    static final int MAX_DESCRIPTION_LENGTH = 500;
+
+    /**
+     * Revisa todos los campos de un producto
+     * @return si el producto es válido
+     */
+    public static boolean check(Product product, ValidationResult result) {
+        return check(product.getName(), product.getPrice(), product.getStock(),
+            product.getCategory(), product.getDescription(), result);
+    }
+
+    /**
+     * Revisa los campos de una fila antes de crear el {@link Product}
+     * @return si la fila es válida
+     */
+    public static boolean check(String name, double price, int stock, String category, String description,
+                                ValidationResult result) {
+        result.reset();
+        checkName(name, result);
+        checkPrice(price, result);
+        checkStock(stock, result);
+        checkCategory(category, result);
+        checkDescription(description, result);
+        return result.isValid();
+    }
+
     /**
      * Valida todos los campos de un producto
      * @param product Producto a validar
@@ -22,80 +51,130 @@ public class ProductValidator {
         validateCategory(product.getCategory());
         validateDescription(product.getDescription());
     }
-    
+
     /**
      * Valida el nombre del producto
      */
     public static void validateName(String name) throws InvalidProductException {
-        if (name == null || name.trim().isEmpty()) {
-            throw new InvalidProductException("El nombre del producto no puede estar vacío");
-        }
-        if (name.length() > MAX_NAME_LENGTH) {
-            throw new InvalidProductException(
-                String.format("El nombre del producto no puede exceder %d caracteres", MAX_NAME_LENGTH)
-            );
+        ValidationResult result = checkName(name, null);
+        if (result != null) {
+            throw result.toException();
         }
     }
-    
+
     /**
      * Valida el precio del producto
      */
     public static void validatePrice(double price) throws InvalidProductException {
-        if (price < MIN_PRICE) {
-            throw new InvalidProductException(
-                String.format("El precio no puede ser negativo. Valor recibido: %.2f", price)
-            );
-        }
-        if (Double.isNaN(price) || Double.isInfinite(price)) {
-            throw new InvalidProductException("El precio debe ser un número válido");
+        ValidationResult result = checkPrice(price, null);
+        if (result != null) {
+            throw result.toException();
         }
     }
-    
+
     /**
      * Valida el stock del producto
      */
     public static void validateStock(int stock) throws InvalidProductException {
-        if (stock < MIN_STOCK) {
-            throw new InvalidProductException(
-                String.format("El stock no puede ser negativo. Valor recibido: %d", stock)
-            );
+        ValidationResult result = checkStock(stock, null);
+        if (result != null) {
+            throw result.toException();
         }
     }
-    
+
     /**
      * Valida la categoría del producto
      */
     public static void validateCategory(String category) throws InvalidProductException {
-        if (category == null || category.trim().isEmpty()) {
-            throw new InvalidProductException("La categoría del producto no puede estar vacía");
+        ValidationResult result = checkCategory(category, null);
+        if (result != null) {
+            throw result.toException();
         }
     }
-    
+
     /**
      * Valida la descripción del producto
      */
     public static void validateDescription(String description) throws InvalidProductException {
-    	if (description == null || description.trim().isEmpty()) {
-    		throw new InvalidProductException("La descripción no puede estar vacía");
-    	}
-
-        if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
-            throw new InvalidProductException(
-                String.format("La descripción no puede exceder %d caracteres", MAX_DESCRIPTION_LENGTH)
-            );
+        ValidationResult result = checkDescription(description, null);
+        if (result != null) {
+            throw result.toException();
         }
     }
-    
+
     /**
      * Valida una actualización de stock
      */
     public static void validateStockUpdate(int currentStock, int quantity) throws InvalidProductException {
-        int newStock = currentStock + quantity;
-        if (newStock < MIN_STOCK) {
-            throw new InvalidProductException(
-                String.format("La operación resultaría en stock negativo. Stock actual: %d, Cantidad: %d", 
-                    currentStock, quantity)
-            );
+        if (currentStock + quantity < MIN_STOCK) {
+            throw new ValidationResult().add(ValidationError.STOCK_UPDATE_NEGATIVE)
+                .withStockUpdate(currentStock, quantity).toException();
+        }
+    }
+
+    // Cada comprobación anota su error en result y lo devuelve. Los métodos que lanzan pasan
+    // null: solo se crea un ValidationResult si hay error, y se devuelve null si no lo hay.
+
+    private static ValidationResult checkName(String name, ValidationResult result) {
+        if (isBlank(name)) {
+            return record(result, ValidationError.NAME_EMPTY);
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            return record(result, ValidationError.NAME_TOO_LONG);
+        }
+        return result;
+    }
+
+    private static ValidationResult checkPrice(double price, ValidationResult result) {
+        if (price < MIN_PRICE) {
+            return record(result, ValidationError.PRICE_NEGATIVE).withPrice(price);
+        }
+        if (Double.isNaN(price) || Double.isInfinite(price)) {
+            return record(result, ValidationError.PRICE_NOT_A_NUMBER);
+        }
+        return result;
+    }
+
+    private static ValidationResult checkStock(int stock, ValidationResult result) {
+        if (stock < MIN_STOCK) {
+            return record(result, ValidationError.STOCK_NEGATIVE).withStock(stock);
+        }
+        return result;
+    }
+
+    private static ValidationResult checkCategory(String category, ValidationResult result) {
+        if (isBlank(category)) {
+            return record(result, ValidationError.CATEGORY_EMPTY);
+        }
+        return result;
+    }
+
+    private static ValidationResult checkDescription(String description, ValidationResult result) {
+        if (isBlank(description)) {
+            return record(result, ValidationError.DESCRIPTION_EMPTY);
+        }
+        if (description.length() > MAX_DESCRIPTION_LENGTH) {
+            return record(result, ValidationError.DESCRIPTION_TOO_LONG);
+        }
+        return result;
+    }
+
+    private static ValidationResult record(ValidationResult result, ValidationError error) {
+        return (result != null ? result : new ValidationResult()).add(error);
+    }
+
+    /**
+     * Equivale a {@code value.trim().isEmpty()} sin crear una cadena nueva
+     */
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
         }
+        return true;
     }
 }
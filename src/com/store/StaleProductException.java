@@ -0,0 +1,30 @@
+package com.store;
+
+import java.sql.SQLException;
+
+/**
+ * Otro cliente ha modificado el producto después de que se leyera: la actualización
+ * no se ha aplicado y hay que volver a leerlo
+ */
+public class StaleProductException extends SQLException {
+
+    private final int productId;
+    private final long expectedVersion;
+
+    public StaleProductException(int productId, long expectedVersion) {
+        super("El producto ID " + productId + " ha sido modificado por otro usuario desde que se cargó");
+        this.productId = productId;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    /**
+     * Versión con la que se leyó el producto
+     */
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -0,0 +1,27 @@
+package com.store;
+
+/**
+ * Cambio de stock de un producto: positivo para entradas, negativo para ventas
+ */
+public class StockAdjustment {
+    private final int productId;
+    private final int delta;
+
+    public StockAdjustment(int productId, int delta) {
+        this.productId = productId;
+        this.delta = delta;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StockAdjustment{productId=%d, delta=%d}", productId, delta);
+    }
+}
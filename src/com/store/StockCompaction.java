@@ -0,0 +1,56 @@
+package com.store;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de una pasada de compactación del diario de stock
+ */
+public class StockCompaction {
+    private final Map<Integer, Integer> applied;
+    private final List<Integer> rejected;
+    private final int movementCount;
+    private final long lastMovementId;
+
+    StockCompaction(Map<Integer, Integer> applied, List<Integer> rejected, int movementCount, long lastMovementId) {
+        this.applied = applied;
+        this.rejected = rejected;
+        this.movementCount = movementCount;
+        this.lastMovementId = lastMovementId;
+    }
+
+    /**
+     * Cambio total aplicado a cada producto
+     */
+    public Map<Integer, Integer> getApplied() {
+        return Collections.unmodifiableMap(applied);
+    }
+
+    /**
+     * Productos cuyos movimientos dejarían el stock en negativo; siguen pendientes
+     */
+    public List<Integer> getRejected() {
+        return Collections.unmodifiableList(rejected);
+    }
+
+    /**
+     * Movimientos pendientes leídos en esta pasada, aplicados o no
+     */
+    public int getMovementCount() {
+        return movementCount;
+    }
+
+    /**
+     * ID del último movimiento leído, desde el que sigue la pasada siguiente
+     */
+    public long getLastMovementId() {
+        return lastMovementId;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StockCompaction{movimientos=%d, productos=%d, rechazados=%d}",
+            movementCount, applied.size(), rejected.size());
+    }
+}
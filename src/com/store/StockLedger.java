@@ -0,0 +1,258 @@
+package com.store;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diario de movimientos de stock con escritura diferida por lotes.
+ *
+ * Los movimientos se acumulan en memoria y se insertan en {@code stock_movements} en un
+ * único lote cuando se alcanza {@code flushSize} o cada {@code flushIntervalMillis}.
+ * Hay dos tipos de movimiento:
+ * <ul>
+ *   <li>Los registrados con {@link #record} (ventas, entradas) quedan pendientes y no tocan
+ *       {@code products.stock}: la compactación periódica los suma al stock en una sola
+ *       actualización por producto, en vez de una actualización por venta sobre la misma fila.
+ *       Los que dejarían el stock en negativo no se aplican y siguen pendientes, así que solo
+ *       sirve a quien puede aceptar que una venta sin stock se detecte más tarde (por ejemplo,
+ *       las ventas ya cobradas que se vuelcan desde las cajas). {@link InventoryServer} y
+ *       {@link InventoryCli} siguen usando la actualización condicional porque tienen que
+ *       responder en el momento si había stock.</li>
+ *   <li>Los cambios que el DAO ya ha aplicado se anotan como historial: los ajustes
+ *       ({@code addToStock}, {@code adjustStocks}), los cambios absolutos de {@code updateStock}
+ *       y los de las actualizaciones del producto completo, con la diferencia respecto al stock
+ *       leído en la misma transacción, y el stock inicial de los productos nuevos. Con los dos
+ *       tipos, la suma de los movimientos de un producto es su stock.</li>
+ * </ul>
+ */
+public class StockLedger implements ProductChangeListener {
+
+    /** Cuándo se consideran guardados los movimientos */
+    public enum Durability {
+        /** {@link #record} no vuelve hasta que el movimiento está en la base de datos */
+        IMMEDIATE,
+        /** Los movimientos se guardan por lotes; se pueden perder si el proceso termina de forma abrupta */
+        BUFFERED
+    }
+
+    public static final String REASON_ADJUSTMENT = "ajuste";
+    /** Cambio absoluto del stock, o stock inicial de un producto nuevo */
+    public static final String REASON_SET = "recuento";
+
+    private static final int COMPACTION_BATCH = 5000;
+
+    private final ProductDAO productDAO;
+    private final StockMovementDAO movementDAO;
+    private final Durability durability;
+    private final int flushSize;
+    private final ScheduledExecutorService scheduler;
+
+    private final Deque<StockMovement> buffer = new ArrayDeque<>();
+    private final Object flushLock = new Object();
+    private final ThreadLocal<Boolean> compacting = ThreadLocal.withInitial(() -> false);
+    private boolean flushScheduled;
+    private boolean closed;
+
+    /**
+     * @param flushSize movimientos acumulados que provocan una escritura inmediata del lote
+     * @param flushIntervalMillis tiempo máximo que un movimiento espera en memoria
+     * @param compactionIntervalMillis cada cuánto se aplican los movimientos pendientes al stock
+     */
+    public StockLedger(ProductDAO productDAO, StockMovementDAO movementDAO, Durability durability,
+                       int flushSize, long flushIntervalMillis, long compactionIntervalMillis) {
+        this.productDAO = productDAO;
+        this.movementDAO = movementDAO;
+        this.durability = durability;
+        this.flushSize = flushSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-ledger");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+            flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::compactQuietly,
+            compactionIntervalMillis, compactionIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public StockLedger(ProductDAO productDAO, StockMovementDAO movementDAO) {
+        this(productDAO, movementDAO, Durability.BUFFERED, 500, 1_000L, 30_000L);
+    }
+
+    /**
+     * Registra un movimiento pendiente; se aplicará a {@code products.stock} en la próxima compactación
+     */
+    public void record(int productId, int delta, String reason) throws SQLException {
+        if (delta == 0) {
+            return;
+        }
+        append(new StockMovement(productId, delta, reason, Instant.now(), false));
+        if (durability == Durability.IMMEDIATE) {
+            flush();
+        }
+    }
+
+    /**
+     * Suma de los movimientos pendientes que todavía están en memoria para un producto
+     */
+    public synchronized int getBufferedDelta(int productId) {
+        int total = 0;
+        for (StockMovement movement : buffer) {
+            if (movement.getProductId() == productId && !movement.isApplied()) {
+                total += movement.getDelta();
+            }
+        }
+        return total;
+    }
+
+    public synchronized int getBufferedCount() {
+        return buffer.size();
+    }
+
+    @Override
+    public void productSaved(Product product) {
+    }
+
+    @Override
+    public void productDeleted(int productId) {
+    }
+
+    @Override
+    public void stockAdjusted(int productId, int delta) {
+        // Los cambios de la compactación ya están en el diario
+        if (compacting.get()) {
+            return;
+        }
+        append(new StockMovement(productId, delta, REASON_ADJUSTMENT, Instant.now(), true));
+    }
+
+    @Override
+    public void stockSet(int productId, int previousStock, int newStock) {
+        append(new StockMovement(productId, newStock - previousStock, REASON_SET, Instant.now(), true));
+    }
+
+    /**
+     * Escribe en la base de datos todos los movimientos acumulados. Si falla, vuelven
+     * al principio del búfer en el mismo orden para reintentarse.
+     */
+    public void flush() throws SQLException {
+        synchronized (flushLock) {
+            List<StockMovement> batch;
+            synchronized (this) {
+                flushScheduled = false;
+                batch = new ArrayList<>(buffer);
+                buffer.clear();
+            }
+            try {
+                movementDAO.insertMovements(batch);
+            } catch (SQLException e) {
+                synchronized (this) {
+                    for (int i = batch.size() - 1; i >= 0; i--) {
+                        buffer.addFirst(batch.get(i));
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Escribe los movimientos acumulados y aplica al stock todos los pendientes, salvo los
+     * que lo dejarían en negativo, que siguen pendientes
+     * @return cambio total aplicado a cada producto
+     */
+    public Map<Integer, Integer> compact() throws SQLException {
+        flush();
+        Map<Integer, Integer> total = new TreeMap<>();
+        compacting.set(true);
+        try {
+            // Se avanza por ID para no volver a leer los movimientos rechazados en la misma compactación
+            StockCompaction compaction;
+            long afterMovementId = 0;
+            do {
+                compaction = productDAO.compactStockMovements(afterMovementId, COMPACTION_BATCH);
+                compaction.getApplied().forEach((id, delta) -> total.merge(id, delta, Integer::sum));
+                if (!compaction.getRejected().isEmpty()) {
+                    System.err.println("Diario de stock: movimientos pendientes sin aplicar por falta de stock "
+                        + "en los productos " + compaction.getRejected());
+                }
+                afterMovementId = compaction.getLastMovementId();
+            } while (compaction.getMovementCount() > 0 && !closedNow());
+            return total;
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Detiene las tareas periódicas y escribe lo que quede en el búfer antes de volver
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            System.err.println("Diario de stock: no se pudieron guardar " + getBufferedCount()
+                + " movimientos: " + e.getMessage());
+        }
+    }
+
+    private void append(StockMovement movement) {
+        boolean scheduleFlush;
+        synchronized (this) {
+            buffer.addLast(movement);
+            scheduleFlush = durability == Durability.BUFFERED && !closed
+                && !flushScheduled && buffer.size() >= flushSize;
+            if (scheduleFlush) {
+                flushScheduled = true;
+            }
+        }
+        if (scheduleFlush) {
+            // El lote se escribe en el hilo del diario para no retrasar al que registra
+            try {
+                scheduler.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // Se está cerrando: close() escribe lo que quede
+            }
+        }
+    }
+
+    private synchronized boolean closedNow() {
+        return closed;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            System.err.println("Diario de stock: error al guardar movimientos, se reintentará: " + e.getMessage());
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (SQLException e) {
+            System.err.println("Diario de stock: error al compactar: " + e.getMessage());
+        }
+    }
+}
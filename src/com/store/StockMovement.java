@@ -0,0 +1,52 @@
+package com.store;
+
+import java.time.Instant;
+
+/**
+ * Movimiento de stock registrado en el diario {@code stock_movements}
+ */
+public class StockMovement {
+    private final int productId;
+    private final int delta;
+    private final String reason;
+    private final Instant timestamp;
+    private final boolean applied;
+
+    /**
+     * @param applied si el cambio ya está reflejado en {@code products.stock}; los movimientos
+     *                pendientes se aplican al compactar el diario
+     */
+    public StockMovement(int productId, int delta, String reason, Instant timestamp, boolean applied) {
+        this.productId = productId;
+        this.delta = delta;
+        this.reason = reason;
+        this.timestamp = timestamp;
+        this.applied = applied;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public boolean isApplied() {
+        return applied;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StockMovement{productId=%d, delta=%d, reason='%s', timestamp=%s, applied=%s}",
+            productId, delta, reason, timestamp, applied);
+    }
+}
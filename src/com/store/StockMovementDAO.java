@@ -0,0 +1,119 @@
+package com.store;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acceso al diario de movimientos de stock (solo se añaden filas, nunca se modifican
+ * salvo para marcarlas como aplicadas al compactar)
+ */
+public class StockMovementDAO {
+
+    /**
+     * Recibe la fecha de la última actividad de un producto sin crear objetos por fila
+     */
+    public interface LastActivityConsumer {
+        void accept(int productId, long epochMillis);
+    }
+
+    /**
+     * Inserta los movimientos en un único lote y una única transacción
+     */
+    public void insertMovements(List<StockMovement> movements) throws SQLException {
+        if (movements.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO stock_movements (product_id, delta, reason, created_at, applied) VALUES (?, ?, ?, ?, ?)";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            try {
+                for (StockMovement movement : movements) {
+                    stmt.setInt(1, movement.getProductId());
+                    stmt.setInt(2, movement.getDelta());
+                    stmt.setString(3, movement.getReason());
+                    stmt.setTimestamp(4, Timestamp.from(movement.getTimestamp()));
+                    stmt.setBoolean(5, movement.isApplied());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Historial de movimientos de un producto, del más reciente al más antiguo
+     */
+    public List<StockMovement> findByProduct(int productId, int limit) throws SQLException {
+        String sql = "SELECT product_id, delta, reason, created_at, applied FROM stock_movements "
+                   + "WHERE product_id = ? ORDER BY id DESC LIMIT ?";
+        List<StockMovement> movements = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, productId);
+            stmt.setInt(2, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    movements.add(new StockMovement(
+                        rs.getInt("product_id"),
+                        rs.getInt("delta"),
+                        rs.getString("reason"),
+                        rs.getTimestamp("created_at").toInstant(),
+                        rs.getBoolean("applied")
+                    ));
+                }
+            }
+        }
+        return movements;
+    }
+
+    /**
+     * Suma de los movimientos de un producto que aún no se han aplicado a {@code products.stock}
+     */
+    public int getPendingDelta(int productId) throws SQLException {
+        String sql = "SELECT COALESCE(SUM(delta), 0) FROM stock_movements WHERE product_id = ? AND applied = FALSE";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, productId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Recorre la fecha de la última actividad de cada producto: su último movimiento de stock
+     * o su última modificación ({@code updated_at}, que también cubre el alta), la más reciente.
+     * Un producto recién creado sin movimientos no cuenta como parado.
+     */
+    public void forEachLastActivity(LastActivityConsumer action) throws SQLException {
+        String sql = "SELECT p.id, p.updated_at, MAX(m.created_at) FROM products p "
+                   + "LEFT JOIN stock_movements m ON m.product_id = p.id GROUP BY p.id, p.updated_at";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                long updated = rs.getTimestamp(2).getTime();
+                Timestamp lastMovement = rs.getTimestamp(3);
+                action.accept(rs.getInt(1), lastMovement == null ? updated : Math.max(updated, lastMovement.getTime()));
+            }
+        }
+    }
+}
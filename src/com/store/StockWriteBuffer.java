@@ -0,0 +1,306 @@
+package com.store;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Escritura diferida de los cambios de stock de alta frecuencia (lectores de códigos de barras).
+ *
+ * Cada {@link #addToStock} solo suma el cambio a un saldo en memoria por producto; cada
+ * {@code flushIntervalMillis} los cambios acumulados se aplican con un único
+ * {@link ProductRepository#adjustStocks}, de modo que cien lecturas del mismo artículo cuestan una
+ * actualización de su fila en lugar de cien.
+ *
+ * El saldo local (stock conocido + cambios en vuelo + pendientes) permite rechazar al momento
+ * las salidas que dejarían el stock en negativo. Si otro proceso ha cambiado el stock y la base
+ * de datos rechaza el cambio acumulado, ese cambio se descarta y se notifica al
+ * {@link #setRejectionHandler manejador de rechazos}. Conviene registrarlo como oyente del DAO
+ * para que el saldo local siga las demás escrituras.
+ */
+public class StockWriteBuffer implements ProductChangeListener {
+
+    private final ProductRepository dao;
+    private final Map<Integer, Balance> balances = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final ThreadLocal<Boolean> flushing = ThreadLocal.withInitial(() -> false);
+    private final ScheduledExecutorService scheduler;
+    private volatile BiConsumer<Integer, Integer> rejectionHandler = (productId, delta) ->
+        System.err.println("Stock: se descarta un cambio de " + delta + " del producto " + productId
+            + " porque dejaría el stock en negativo");
+
+    /**
+     * @param flushIntervalMillis cada cuánto se aplican los cambios acumulados
+     */
+    public StockWriteBuffer(ProductRepository dao, long flushIntervalMillis) {
+        this.dao = dao;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-write-buffer");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+            flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Recibe (en el hilo que aplica los cambios) el ID y el cambio descartado cuando la
+     * base de datos rechaza un cambio ya aceptado en memoria
+     */
+    public void setRejectionHandler(BiConsumer<Integer, Integer> rejectionHandler) {
+        this.rejectionHandler = rejectionHandler;
+    }
+
+    /**
+     * Acumula un cambio de stock; se aplicará en el siguiente volcado
+     * @throws InvalidProductException si el cambio dejaría el stock en negativo
+     * @throws SQLException si el producto no existe o no se puede leer su stock
+     */
+    public boolean addToStock(int productId, int quantity) throws SQLException, InvalidProductException {
+        while (true) {
+            Balance balance = balanceOf(productId);
+            synchronized (balance) {
+                if (balance.removed) {
+                    continue; // Se ha descartado mientras tanto: volver a leer el stock
+                }
+                ProductValidator.validateStockUpdate(balance.available(), quantity);
+                balance.pending += quantity;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Fija el stock de un producto. Los cambios acumulados anteriores quedan sustituidos por el nuevo valor.
+     */
+    public boolean updateStock(int productId, int newStock) throws SQLException, InvalidProductException {
+        synchronized (flushLock) {
+            Balance balance = balances.remove(productId);
+            if (balance != null) {
+                synchronized (balance) {
+                    balance.removed = true;
+                }
+            }
+            return dao.updateStock(productId, newStock);
+        }
+    }
+
+    /**
+     * Stock disponible según el saldo local, incluidos los cambios aún no aplicados
+     */
+    public int getAvailableStock(int productId) throws SQLException {
+        Balance balance = balanceOf(productId);
+        synchronized (balance) {
+            return balance.available();
+        }
+    }
+
+    /**
+     * Aplica en la base de datos todos los cambios acumulados hasta ahora.
+     * Si falla, los cambios vuelven a quedar pendientes para el siguiente intento.
+     */
+    public void flush() throws SQLException {
+        synchronized (flushLock) {
+            Map<Integer, Balance> inFlight = new ConcurrentHashMap<>();
+            List<StockAdjustment> adjustments = new ArrayList<>();
+            for (Map.Entry<Integer, Balance> entry : balances.entrySet()) {
+                Balance balance = entry.getValue();
+                synchronized (balance) {
+                    if (balance.pending != 0 && !balance.removed) {
+                        balance.inFlight = balance.pending;
+                        balance.pending = 0;
+                        inFlight.put(entry.getKey(), balance);
+                        adjustments.add(new StockAdjustment(entry.getKey(), balance.inFlight));
+                    }
+                }
+            }
+
+            flushing.set(true);
+            try {
+                // adjustStocks es todo o nada: se repite sin los productos rechazados
+                List<Integer> rejected = dao.adjustStocks(adjustments);
+                while (!rejected.isEmpty()) {
+                    Set<Integer> rejectedIds = new HashSet<>(rejected);
+                    adjustments.removeIf(a -> rejectedIds.contains(a.getProductId()));
+                    for (int productId : rejectedIds) {
+                        discard(productId, inFlight.remove(productId));
+                    }
+                    rejected = dao.adjustStocks(adjustments);
+                }
+            } catch (SQLException e) {
+                for (Balance balance : inFlight.values()) {
+                    synchronized (balance) {
+                        balance.pending += balance.inFlight;
+                        balance.inFlight = 0;
+                    }
+                }
+                throw e;
+            } finally {
+                flushing.set(false);
+            }
+
+            for (Map.Entry<Integer, Balance> entry : inFlight.entrySet()) {
+                Balance balance = entry.getValue();
+                synchronized (balance) {
+                    balance.stock += balance.inFlight;
+                    balance.inFlight = 0;
+                }
+            }
+            evictIdle();
+        }
+    }
+
+    /**
+     * Detiene el volcado periódico y aplica todo lo pendiente antes de volver
+     */
+    public void close() throws SQLException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    /**
+     * Vuelca hasta que no queda ningún cambio pendiente
+     */
+    public void drain() throws SQLException {
+        do {
+            flush();
+        } while (hasPending());
+    }
+
+    @Override
+    public void productSaved(Product product) {
+        Balance balance = balances.get(product.getId());
+        if (balance != null) {
+            synchronized (balance) {
+                balance.stock = product.getStock();
+            }
+        }
+    }
+
+    @Override
+    public void productDeleted(int productId) {
+        Balance balance = balances.remove(productId);
+        if (balance != null) {
+            synchronized (balance) {
+                balance.removed = true;
+            }
+        }
+    }
+
+    @Override
+    public void stockAdjusted(int productId, int delta) {
+        // Los cambios propios se suman al terminar el volcado
+        if (flushing.get()) {
+            return;
+        }
+        Balance balance = balances.get(productId);
+        if (balance != null) {
+            synchronized (balance) {
+                balance.stock += delta;
+            }
+        }
+    }
+
+    @Override
+    public void stockSet(int productId, int newStock) {
+        Balance balance = balances.get(productId);
+        if (balance != null) {
+            synchronized (balance) {
+                balance.stock = newStock;
+            }
+        }
+    }
+
+    private Balance balanceOf(int productId) throws SQLException {
+        Balance balance = balances.get(productId);
+        if (balance != null) {
+            return balance;
+        }
+        Product product = dao.getProductById(productId);
+        if (product == null) {
+            throw new SQLException("Producto no encontrado con ID: " + productId);
+        }
+        return balances.computeIfAbsent(productId, id -> new Balance(product.getStock()));
+    }
+
+    /**
+     * El saldo local no coincidía con la base de datos: se descartan los cambios en vuelo y los
+     * aceptados después, y el saldo se vuelve a leer en el siguiente uso
+     */
+    private void discard(int productId, Balance balance) {
+        int lost;
+        synchronized (balance) {
+            lost = balance.inFlight + balance.pending;
+            balance.inFlight = 0;
+            balance.pending = 0;
+            balance.removed = true;
+        }
+        balances.remove(productId, balance);
+        rejectionHandler.accept(productId, lost);
+    }
+
+    /**
+     * Los saldos sin cambios pendientes se eliminan; el siguiente uso vuelve a leer el stock
+     */
+    private void evictIdle() {
+        for (Map.Entry<Integer, Balance> entry : balances.entrySet()) {
+            Balance balance = entry.getValue();
+            synchronized (balance) {
+                if (balance.pending == 0 && balance.inFlight == 0) {
+                    balance.removed = true;
+                    balances.remove(entry.getKey(), balance);
+                }
+            }
+        }
+    }
+
+    private boolean hasPending() {
+        for (Balance balance : balances.values()) {
+            synchronized (balance) {
+                if (balance.pending != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            System.err.println("Stock: error al aplicar los cambios acumulados, se reintentará: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saldo local de un producto
+     */
+    private static class Balance {
+        int stock;      // Último stock conocido en la base de datos
+        int inFlight;   // Cambio que se está aplicando
+        int pending;    // Cambios aceptados aún no enviados
+        boolean removed;
+
+        Balance(int stock) {
+            this.stock = stock;
+        }
+
+        int available() {
+            return stock + inFlight + pending;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.store;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro de las métricas de la aplicación.
+ *
+ * Cada operación se crea una vez (normalmente en un campo estático) y después sus
+ * llamadas se registran sin reservar memoria. Las métricas se publican por JMX bajo el dominio
+ * {@code com.store} (visibles con JConsole o VisualVM) y pueden volcarse periódicamente
+ * a la salida de errores.
+ */
+public final class StoreMetrics {
+
+    private static final String DOMAIN = "com.store";
+
+    private static final Map<String, OperationMetrics> OPERATIONS = new ConcurrentSkipListMap<>();
+    private static ScheduledExecutorService dumper;
+    private static boolean mbeansRegistered;
+
+    private StoreMetrics() {
+    }
+
+    /**
+     * Devuelve las métricas de una operación, creándolas la primera vez
+     * @param name nombre con la forma {@code grupo.operacion}, por ejemplo {@code dao.getProductById}
+     */
+    public static OperationMetrics operation(String name) {
+        OperationMetrics metrics = OPERATIONS.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        synchronized (StoreMetrics.class) {
+            metrics = OPERATIONS.computeIfAbsent(name, OperationMetrics::new);
+            if (mbeansRegistered) {
+                try {
+                    register(ManagementFactory.getPlatformMBeanServer(), objectName(metrics), metrics);
+                } catch (JMException e) {
+                    System.err.println("No se pudo publicar la métrica " + name + " por JMX: " + e.getMessage());
+                }
+            }
+            return metrics;
+        }
+    }
+
+    /**
+     * Todas las operaciones registradas, en orden de nombre
+     */
+    static Collection<OperationMetrics> operations() {
+        return OPERATIONS.values();
+    }
+
+    /**
+     * Publica por JMX el pool de conexiones y las operaciones, tanto las registradas
+     * hasta ahora como las que se creen después
+     */
+    public static synchronized void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ConnectionPool pool = DatabaseConnection.getPool();
+            register(server, new ObjectName(DOMAIN + ":type=ConnectionPool"), pool);
+            register(server, objectName(pool.getAcquireMetrics()), pool.getAcquireMetrics());
+            for (OperationMetrics metrics : OPERATIONS.values()) {
+                register(server, objectName(metrics), metrics);
+            }
+            // Las operaciones creadas a partir de ahora se publican al crearse
+            mbeansRegistered = true;
+        } catch (JMException e) {
+            System.err.println("No se pudieron publicar las métricas por JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Vuelca todas las métricas a la salida de errores cada {@code periodSeconds} segundos
+     * (0 para no volcarlas)
+     */
+    public static synchronized void startDump(long periodSeconds) {
+        if (periodSeconds <= 0 || dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(System.err), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Escribe una instantánea de todas las métricas
+     */
+    public static void dump(PrintStream out) {
+        StringBuilder text = new StringBuilder("--- Métricas ---\n");
+        // Sin base de datos (almacén local) no hay pool, y no se crea solo para esto
+        ConnectionPool pool = DatabaseConnection.currentPool();
+        if (pool != null) {
+            text.append(String.format("connection.pool                active=%d idle=%d total=%d max=%d%n",
+                pool.getActiveCount(), pool.getIdleCount(), pool.getTotalCount(), pool.getMaxSize()));
+            text.append(pool.getAcquireMetrics()).append('\n');
+        }
+        for (OperationMetrics metrics : OPERATIONS.values()) {
+            if (metrics.getCalls() > 0) {
+                text.append(metrics).append('\n');
+            }
+        }
+        out.print(text);
+    }
+
+    private static ObjectName objectName(OperationMetrics metrics) throws JMException {
+        String name = metrics.getName();
+        int dot = name.indexOf('.');
+        String type = dot < 0 ? "operation" : name.substring(0, dot);
+        return new ObjectName(DOMAIN + ":type=" + ObjectName.quote(type)
+            + ",name=" + ObjectName.quote(name.substring(dot + 1)));
+    }
+
+    private static void register(MBeanServer server, ObjectName name, Object bean) throws JMException {
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(bean, name);
+    }
+}
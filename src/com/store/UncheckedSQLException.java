@@ -0,0 +1,19 @@
+package com.store;
+
+import java.sql.SQLException;
+
+/**
+ * Envuelve una {@link SQLException} en contextos que no admiten excepciones
+ * comprobadas, como los {@link java.util.stream.Stream} de productos
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -0,0 +1,27 @@
+package com.store;
+
+/**
+ * Motivos por los que un producto no es válido, con el campo al que afectan.
+ * El mensaje se compone solo cuando se pide, con {@link ValidationResult#getMessage(ValidationError)}.
+ */
+public enum ValidationError {
+    NAME_EMPTY(Product.Field.NAME),
+    NAME_TOO_LONG(Product.Field.NAME),
+    PRICE_NEGATIVE(Product.Field.PRICE),
+    PRICE_NOT_A_NUMBER(Product.Field.PRICE),
+    STOCK_NEGATIVE(Product.Field.STOCK),
+    STOCK_UPDATE_NEGATIVE(Product.Field.STOCK),
+    CATEGORY_EMPTY(Product.Field.CATEGORY),
+    DESCRIPTION_EMPTY(Product.Field.DESCRIPTION),
+    DESCRIPTION_TOO_LONG(Product.Field.DESCRIPTION);
+
+    private final Product.Field field;
+
+    ValidationError(Product.Field field) {
+        this.field = field;
+    }
+
+    public Product.Field getField() {
+        return field;
+    }
+}
@@ -0,0 +1,160 @@
+package com.store;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Errores de validación de una fila, sin excepciones ni mensajes compuestos de antemano.
+ *
+ * Se puede reutilizar para validar muchas filas seguidas: {@link ProductValidator#check}
+ * lo vacía al empezar y anota un bit por cada {@link ValidationError} junto con los valores
+ * que necesita el mensaje, así que validar no reserva memoria. Los mensajes se componen
+ * solo al pedirlos.
+ */
+public final class ValidationResult {
+
+    private int errors;
+    private double price;
+    private int stock;
+    private int currentStock;
+    private int quantity;
+
+    public void reset() {
+        errors = 0;
+    }
+
+    public boolean isValid() {
+        return errors == 0;
+    }
+
+    public boolean hasError(ValidationError error) {
+        return (errors & (1 << error.ordinal())) != 0;
+    }
+
+    /**
+     * Si algún error afecta al campo indicado
+     */
+    public boolean hasError(Product.Field field) {
+        for (ValidationError error : ValidationError.values()) {
+            if (error.getField() == field && hasError(error)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getErrorCount() {
+        return Integer.bitCount(errors);
+    }
+
+    /**
+     * Primer error en el orden de los campos, o {@code null} si la fila es válida
+     */
+    public ValidationError getFirstError() {
+        return errors == 0 ? null : ValidationError.values()[Integer.numberOfTrailingZeros(errors)];
+    }
+
+    public List<ValidationError> getErrors() {
+        List<ValidationError> list = new ArrayList<>(getErrorCount());
+        for (ValidationError error : ValidationError.values()) {
+            if (hasError(error)) {
+                list.add(error);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Mensaje del primer error (el mismo que lanzaría {@link ProductValidator#validate}),
+     * o {@code null} si la fila es válida
+     */
+    public String getMessage() {
+        ValidationError first = getFirstError();
+        return first == null ? null : getMessage(first);
+    }
+
+    /**
+     * Mensajes de todos los errores de la fila
+     */
+    public List<String> getMessages() {
+        List<String> messages = new ArrayList<>(getErrorCount());
+        for (ValidationError error : getErrors()) {
+            messages.add(getMessage(error));
+        }
+        return messages;
+    }
+
+    public String getMessage(ValidationError error) {
+        switch (error) {
+            case NAME_EMPTY:
+                return "El nombre del producto no puede estar vacío";
+            case NAME_TOO_LONG:
+                return String.format("El nombre del producto no puede exceder %d caracteres",
+                    ProductValidator.MAX_NAME_LENGTH);
+            case PRICE_NEGATIVE:
+                return String.format("El precio no puede ser negativo. Valor recibido: %.2f", price);
+            case PRICE_NOT_A_NUMBER:
+                return "El precio debe ser un número válido";
+            case STOCK_NEGATIVE:
+                return String.format("El stock no puede ser negativo. Valor recibido: %d", stock);
+            case STOCK_UPDATE_NEGATIVE:
+                return String.format("La operación resultaría en stock negativo. Stock actual: %d, Cantidad: %d",
+                    currentStock, quantity);
+            case CATEGORY_EMPTY:
+                return "La categoría del producto no puede estar vacía";
+            case DESCRIPTION_EMPTY:
+                return "La descripción no puede estar vacía";
+            case DESCRIPTION_TOO_LONG:
+                return String.format("La descripción no puede exceder %d caracteres",
+                    ProductValidator.MAX_DESCRIPTION_LENGTH);
+            default:
+                return error.name();
+        }
+    }
+
+    /**
+     * Copia independiente, para conservar el resultado de una fila antes de reutilizar este
+     */
+    public ValidationResult copy() {
+        ValidationResult copy = new ValidationResult();
+        copy.errors = errors;
+        copy.price = price;
+        copy.stock = stock;
+        copy.currentStock = currentStock;
+        copy.quantity = quantity;
+        return copy;
+    }
+
+    /**
+     * Excepción con el mensaje del primer error
+     */
+    public InvalidProductException toException() {
+        return new InvalidProductException(getMessage());
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? "ValidationResult{válido}" : "ValidationResult" + getErrors();
+    }
+
+    ValidationResult add(ValidationError error) {
+        errors |= 1 << error.ordinal();
+        return this;
+    }
+
+    ValidationResult withPrice(double price) {
+        this.price = price;
+        return this;
+    }
+
+    ValidationResult withStock(int stock) {
+        this.stock = stock;
+        return this;
+    }
+
+    ValidationResult withStockUpdate(int currentStock, int quantity) {
+        this.currentStock = currentStock;
+        this.quantity = quantity;
+        return this;
+    }
+}